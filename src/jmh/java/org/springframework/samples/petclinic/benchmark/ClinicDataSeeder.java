@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Inserts a configurable volume of owners, pets and visits on top of the sample data so
+ * that the benchmarks run against something closer to a production sized clinic.
+ * <p>
+ * Owners are spread over {@link #LAST_NAMES} distinct last names (<code>Seed0000</code>,
+ * <code>Seed0001</code>...), so a search for {@link #SEARCH_PREFIX} matches ten of them
+ * and returns <code>owners / 50</code> rows. Seeded rows take the ids following the
+ * sample data and the id sequences are moved past them.
+ */
+class ClinicDataSeeder {
+
+	static final int LAST_NAMES = 500;
+
+	static final String SEARCH_PREFIX = "Seed000";
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	ClinicDataSeeder(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	static String lastName(int index) {
+		return String.format("Seed%04d", index % LAST_NAMES);
+	}
+
+	Seeded seed(int owners, int petsPerOwner, int visitsPerPet) {
+		int ownerId = nextId("owners");
+		List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+		List<Integer> ownerIds = new ArrayList<>(owners);
+		for (int i = 0; i < owners; i++) {
+			ownerIds.add(ownerId + i);
+			rows.add(new Object[] { ownerId + i, "Owner" + i, lastName(i), i + " Benchmark Street", "Madison",
+					"6085550000" });
+			rows = flush(
+					"INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)",
+					rows, false);
+		}
+		flush("INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)",
+				rows, true);
+		restart("owners");
+
+		int petId = nextId("pets");
+		rows = new ArrayList<>(BATCH_SIZE);
+		List<Integer> petIds = new ArrayList<>(owners * petsPerOwner);
+		for (Integer owner : ownerIds) {
+			for (int i = 0; i < petsPerOwner; i++) {
+				petIds.add(petId);
+				rows.add(new Object[] { petId++, "Pet" + i, Date.valueOf(LocalDate.of(2010, 1, 1).plusDays(i)),
+						1 + i % 6, owner });
+				rows = flush("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", rows,
+						false);
+			}
+		}
+		flush("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", rows, true);
+		restart("pets");
+
+		int visitId = nextId("visits");
+		rows = new ArrayList<>(BATCH_SIZE);
+		for (Integer pet : petIds) {
+			for (int i = 0; i < visitsPerPet; i++) {
+				rows.add(new Object[] { visitId++, pet, Date.valueOf(LocalDate.of(2015, 1, 1).plusDays(i)),
+						"checkup " + i });
+				rows = flush("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", rows,
+						false);
+			}
+		}
+		flush("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", rows, true);
+		restart("visits");
+
+		return new Seeded(ownerIds.isEmpty() ? 1 : ownerIds.get(0), petIds.isEmpty() ? 1 : petIds.get(0),
+				SEARCH_PREFIX);
+	}
+
+	private int nextId(String table) {
+		return this.jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Integer.class);
+	}
+
+	private void restart(String table) {
+		this.jdbc.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + nextId(table));
+	}
+
+	private List<Object[]> flush(String sql, List<Object[]> rows, boolean force) {
+		if (rows.isEmpty() || (!force && rows.size() < BATCH_SIZE)) {
+			return rows;
+		}
+		this.jdbc.batchUpdate(sql, rows);
+		return new ArrayList<>(BATCH_SIZE);
+	}
+
+	/**
+	 * Identifiers of seeded rows that the benchmarks can look up.
+	 */
+	record Seeded(int ownerId, int petId, String lastName) {
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.UUID;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.benchmark.ClinicDataSeeder.Seeded;
+import org.springframework.samples.petclinic.owner.OwnerSummaryRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Shared benchmark state: the whole application started against its own in-memory H2
+ * database, seeded with {@link #owners} owners, each with {@link #petsPerOwner} pets that
+ * have {@link #visitsPerPet} visits.
+ */
+@State(Scope.Benchmark)
+public class ClinicState {
+
+	@Param("1000")
+	public int owners;
+
+	@Param("2")
+	public int petsPerOwner;
+
+	@Param("3")
+	public int visitsPerPet;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	private Seeded seeded;
+
+	@Setup(Level.Trial)
+	public void start() {
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(), "server.port=0",
+					"spring.main.banner-mode=off", "logging.level.root=WARN")
+			.run();
+		this.seeded = new ClinicDataSeeder(getBean(JdbcTemplate.class)).seed(this.owners, this.petsPerOwner,
+				this.visitsPerPet);
+		getBean(OwnerSummaryRepository.class).insertMissing();
+		this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) this.context).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return this.context.getBean(type);
+	}
+
+	public MockMvc getMockMvc() {
+		return this.mockMvc;
+	}
+
+	public int getOwnerId() {
+		return this.seeded.ownerId();
+	}
+
+	public int getPetId() {
+		return this.seeded.petId();
+	}
+
+	public String getLastName() {
+		return this.seeded.lastName();
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.PetTypeRegistry;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Insert throughput through the repositories: each invocation saves {@link #OWNERS}
+ * new owners, each with two pets that have one visit each, in one transaction. Scores
+ * are owners per second. Hibernate only batches the inserts when it can assign the ids
+ * itself, so compare <code>-p batchSize=1,50</code>, and compare with a run of the same
+ * benchmark against an identity mapped {@link org.springframework.samples.petclinic.model.BaseEntity}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(InsertBenchmarks.OWNERS)
+public class InsertBenchmarks {
+
+	static final int OWNERS = 100;
+
+	@Benchmark
+	public int saveOwnersWithPetsAndVisits(Database database) {
+		return database.transactions.execute((status) -> {
+			int saved = 0;
+			for (int i = 0; i < OWNERS; i++) {
+				Owner owner = new Owner();
+				owner.setFirstName("Owner" + i);
+				owner.setLastName("Insert");
+				owner.setAddress(i + " Benchmark Street");
+				owner.setCity("Madison");
+				owner.setTelephone("6085550000");
+				for (int p = 0; p < 2; p++) {
+					Pet pet = new Pet();
+					pet.setName("Pet" + p);
+					pet.setBirthDate(LocalDate.of(2020, 1, 1).plusDays(p));
+					pet.setType(database.types.get(p % database.types.size()));
+					owner.addPet(pet);
+				}
+				database.owners.save(owner);
+				for (Pet pet : owner.getPets()) {
+					Visit visit = new Visit();
+					visit.setPetId(pet.getId());
+					visit.setDate(LocalDate.of(2023, 1, 1));
+					visit.setDescription("checkup");
+					database.visits.save(visit);
+				}
+				saved++;
+			}
+			return saved;
+		});
+	}
+
+	/**
+	 * The application started against its own in-memory H2 database with the given JDBC
+	 * batch size.
+	 */
+	@State(Scope.Benchmark)
+	public static class Database {
+
+		@Param({ "1", "50" })
+		public int batchSize;
+
+		private ConfigurableApplicationContext context;
+
+		private TransactionTemplate transactions;
+
+		private OwnerRepository owners;
+
+		private VisitRepository visits;
+
+		private List<PetType> types;
+
+		@Setup(Level.Trial)
+		public void start() {
+			this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(), "server.port=0",
+						"spring.main.banner-mode=off", "logging.level.root=WARN",
+						"spring.jpa.properties.hibernate.jdbc.batch_size=" + this.batchSize)
+				.run();
+			this.transactions = new TransactionTemplate(this.context.getBean(PlatformTransactionManager.class));
+			this.owners = this.context.getBean(OwnerRepository.class);
+			this.visits = this.context.getBean(VisitRepository.class);
+			this.types = this.context.getBean(PetTypeRegistry.class).getPetTypes().getAll();
+		}
+
+		@TearDown(Level.Trial)
+		public void stop() {
+			if (this.context != null) {
+				this.context.close();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Full request round trips through the {@code DispatcherServlet}: controller, repository
+ * calls, layout interceptor and view rendering.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockMvcBenchmarks {
+
+	@Benchmark
+	public MvcResult findOwners(ClinicState clinic) throws Exception {
+		return clinic.getMockMvc().perform(get("/owners").param("lastName", clinic.getLastName())).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult showOwner(ClinicState clinic) throws Exception {
+		return clinic.getMockMvc().perform(get("/owners/{ownerId}", clinic.getOwnerId())).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult showVetList(ClinicState clinic) throws Exception {
+		return clinic.getMockMvc().perform(get("/vets.html")).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult showVetResources(ClinicState clinic) throws Exception {
+		return clinic.getMockMvc().perform(get("/vets").accept("application/json")).andReturn();
+	}
+
+}
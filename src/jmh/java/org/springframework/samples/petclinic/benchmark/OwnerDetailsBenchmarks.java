@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.web.servlet.view.MustacheViewResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Renders the owner details page for an owner with {@link #pets} pets that have
+ * {@link #visits} visits each, built in memory so that large owners do not need a
+ * large database. Every render gets a new owner, like every request loads its own, so
+ * the pets and visits are sorted again each time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OwnerDetailsBenchmarks {
+
+	@Param({ "10", "100" })
+	public int pets;
+
+	@Param("5")
+	public int visits;
+
+	private View view;
+
+	private Map<String, Object> model;
+
+	@Setup(Level.Trial)
+	public void capture(ClinicState clinic) throws Exception {
+		MvcResult result = clinic.getMockMvc().perform(get("/owners/" + clinic.getOwnerId())).andReturn();
+		ModelAndView mav = result.getModelAndView();
+		this.view = clinic.getBean(MustacheViewResolver.class).resolveViewName(mav.getViewName(), Locale.ENGLISH);
+		this.model = mav.getModel();
+	}
+
+	private Owner owner() {
+		Owner owner = new Owner();
+		owner.setId(1);
+		owner.setFirstName("George");
+		owner.setLastName("Franklin");
+		owner.setAddress("110 W. Liberty St.");
+		owner.setCity("Madison");
+		owner.setTelephone("6085551023");
+		PetType type = new PetType();
+		type.setId(1);
+		type.setName("cat");
+		LocalDate today = LocalDate.of(2023, 1, 1);
+		for (int i = 0; i < this.pets; i++) {
+			Pet pet = new Pet();
+			// names in reverse order of creation, so that sorting has something to do
+			pet.setName("Pet " + (this.pets - i));
+			pet.setBirthDate(today.minusYears(1));
+			pet.setType(type);
+			owner.addPet(pet);
+			pet.setId(i + 1);
+			for (int j = 0; j < this.visits; j++) {
+				Visit visit = new Visit();
+				visit.setId(i * this.visits + j + 1);
+				visit.setDate(today.minusDays(this.visits - j));
+				visit.setDescription("check up " + j);
+				pet.addVisit(visit);
+			}
+		}
+		return owner;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse render() throws Exception {
+		Map<String, Object> model = new HashMap<>(this.model);
+		model.put("owner", owner());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.view.render(model, new MockHttpServletRequest(), response);
+		return response;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.samples.petclinic.owner.OwnerNameIndex;
+import org.springframework.samples.petclinic.owner.OwnerSuggestion;
+
+/**
+ * Lookups in the {@link OwnerNameIndex} behind the owner typeahead, with {@link Names#names}
+ * owners (one million by default) whose last names are drawn from
+ * {@link Names#distinctNames} generated names. The {@link Prefix prefixes} match a growing share of the
+ * owners as they get shorter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OwnerNameIndexBenchmarks {
+
+	private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ro", "sa", "te", "vi", "bu", "da" };
+
+	@Benchmark
+	public List<OwnerSuggestion> suggest(Names names, Prefix prefix) {
+		return names.index.suggest(prefix.prefix, 10);
+	}
+
+	@Benchmark
+	public void put(Names names) {
+		int id = names.random.nextInt(names.names) + 1;
+		names.index.put(new OwnerSuggestion(id, "Updated", names.lastNames[names.random.nextInt(names.lastNames.length)]));
+	}
+
+	@State(Scope.Benchmark)
+	public static class Names {
+
+		@Param("1000000")
+		public int names;
+
+		@Param("50000")
+		public int distinctNames;
+
+		private OwnerNameIndex index;
+
+		private String[] lastNames;
+
+		private final Random random = new Random(42);
+
+		@Setup(Level.Trial)
+		public void build() {
+			Random random = new Random(7);
+			this.lastNames = new String[this.distinctNames];
+			for (int i = 0; i < this.distinctNames; i++) {
+				StringBuilder name = new StringBuilder();
+				for (int syllable = 0, count = 2 + random.nextInt(4); syllable < count; syllable++) {
+					name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+				}
+				name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+				this.lastNames[i] = name.toString();
+			}
+			List<OwnerSuggestion> owners = new ArrayList<>(this.names);
+			for (int id = 1; id <= this.names; id++) {
+				owners.add(new OwnerSuggestion(id, "First" + random.nextInt(5000),
+						this.lastNames[random.nextInt(this.distinctNames)]));
+			}
+			this.index = OwnerNameIndex.of(owners);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Prefix {
+
+		@Param({ "K", "Kalo", "Kalomine" })
+		public String prefix;
+
+	}
+
+}
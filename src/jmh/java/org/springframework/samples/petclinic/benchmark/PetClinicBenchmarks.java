@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the JMH benchmarks. The first argument is a regular expression
+ * selecting the benchmarks to run, any further arguments are passed through to JMH (for
+ * example {@code -p owners=100000} to change the seeded data volume).
+ * <p>
+ * Results are written as JSON to {@code target/jmh/<git commit>.json} (or the file named
+ * by the {@code benchmark.result} system property) so that runs from different commits
+ * can be compared with any JMH result viewer.
+ */
+public class PetClinicBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		String include = args.length > 0 ? args[0] : ".*";
+		CommandLineOptions commandLine = new CommandLineOptions(Arrays.copyOfRange(args, Math.min(1, args.length),
+				args.length));
+		Path result = Paths.get(System.getProperty("benchmark.result", "target/jmh/" + commitId() + ".json"));
+		Files.createDirectories(result.toAbsolutePath().getParent());
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+			.include(PetClinicBenchmarks.class.getPackageName() + "." + include)
+			.resultFormat(ResultFormatType.JSON)
+			.result(result.toString());
+		new Runner(options.build()).run();
+	}
+
+	private static String commitId() throws IOException {
+		try (InputStream stream = PetClinicBenchmarks.class.getResourceAsStream("/git.properties")) {
+			if (stream == null) {
+				return "local";
+			}
+			Properties properties = new Properties();
+			properties.load(stream);
+			return properties.getProperty("git.commit.id.abbrev", "local");
+		}
+	}
+
+}
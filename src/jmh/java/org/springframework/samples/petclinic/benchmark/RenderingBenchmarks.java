@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.web.servlet.view.MustacheViewResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Mustache rendering benchmarks. The model for each page is captured once from a real
+ * request, so only the template rendering itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmarks {
+
+	@Benchmark
+	public MockHttpServletResponse ownersList(Pages pages) throws Exception {
+		return pages.ownersList.render();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse ownerDetails(Pages pages) throws Exception {
+		return pages.ownerDetails.render();
+	}
+
+	/**
+	 * Same page as {@link #ownerDetails(Pages)}, but written through a fixed size buffer
+	 * like a servlet container does, instead of being collected in memory. Compare the
+	 * two with <code>-prof gc</code> and many visits (e.g.
+	 * <code>-p visitsPerPet=250</code>) to see the allocation per request.
+	 */
+	@Benchmark
+	public HttpServletResponse ownerDetailsStreamed(Pages pages) throws Exception {
+		return pages.ownerDetails.stream();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse vetList(Pages pages) throws Exception {
+		return pages.vetList.render();
+	}
+
+	@State(Scope.Benchmark)
+	public static class Pages {
+
+		RenderedPage ownersList;
+
+		RenderedPage ownerDetails;
+
+		RenderedPage vetList;
+
+		@Setup(Level.Trial)
+		public void capture(ClinicState clinic) throws Exception {
+			this.ownersList = capture(clinic, "/owners?lastName=" + clinic.getLastName());
+			this.ownerDetails = capture(clinic, "/owners/" + clinic.getOwnerId());
+			this.vetList = capture(clinic, "/vets.html");
+		}
+
+		private RenderedPage capture(ClinicState clinic, String path) throws Exception {
+			MvcResult result = clinic.getMockMvc().perform(get(path)).andReturn();
+			ModelAndView mav = result.getModelAndView();
+			View view = clinic.getBean(MustacheViewResolver.class).resolveViewName(mav.getViewName(), Locale.ENGLISH);
+			return new RenderedPage(view, mav.getModel());
+		}
+
+	}
+
+	record RenderedPage(View view, Map<String, Object> model) {
+
+		MockHttpServletResponse render() throws Exception {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			this.view.render(this.model, new MockHttpServletRequest(), response);
+			return response;
+		}
+
+		HttpServletResponse stream() throws Exception {
+			StreamedResponse response = new StreamedResponse();
+			this.view.render(this.model, new MockHttpServletRequest(), response);
+			response.getWriter().flush();
+			return response;
+		}
+
+	}
+
+	/**
+	 * Response that discards its content after passing it through a buffer of the size
+	 * that Tomcat uses by default.
+	 */
+	static class StreamedResponse extends MockHttpServletResponse {
+
+		private final PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+				new BufferedOutputStream(OutputStream.nullOutputStream(), 8192), StandardCharsets.UTF_8));
+
+		@Override
+		public PrintWriter getWriter() {
+			return this.writer;
+		}
+
+	}
+
+}
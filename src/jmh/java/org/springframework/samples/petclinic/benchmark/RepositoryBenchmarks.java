@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerListItem;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummaryRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+
+/**
+ * Repository level benchmarks: the queries behind the owner search and owner details
+ * pages, without any web or view overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmarks {
+
+	@Benchmark
+	public Page<Owner> findOwnersByLastName(ClinicState clinic) {
+		return clinic.getBean(OwnerRepository.class).findByLastName(clinic.getLastName(), PageRequest.of(0, 5));
+	}
+
+	@Benchmark
+	public Page<Owner> findOwnersByLastNameDeepPage(ClinicState clinic) {
+		int lastPage = Math.max(0, clinic.owners / 5 - 1);
+		return clinic.getBean(OwnerRepository.class).findByLastName("", PageRequest.of(lastPage, 5));
+	}
+
+	@Benchmark
+	public Page<OwnerListItem> findOwnerListItemsByLastName(ClinicState clinic) {
+		return clinic.getBean(OwnerSummaryRepository.class)
+			.findListItemsByLastName(ClinicDataSeeder.SEARCH_PREFIX, PageRequest.of(0, 5));
+	}
+
+	@Benchmark
+	public Page<OwnerListItem> findOwnerListItemsByLastNameDeepPage(ClinicState clinic) {
+		int lastPage = Math.max(0, clinic.owners / 5 - 1);
+		return clinic.getBean(OwnerSummaryRepository.class).findListItemsByLastName("", PageRequest.of(lastPage, 5));
+	}
+
+	@Benchmark
+	public Owner findOwnerById(ClinicState clinic) {
+		return clinic.getBean(OwnerRepository.class).findById(clinic.getOwnerId());
+	}
+
+	@Benchmark
+	public List<Visit> findVisitsByPetId(ClinicState clinic) {
+		return clinic.getBean(VisitRepository.class).findByPetId(clinic.getPetId());
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.benchmark.ClinicDataSeeder.Seeded;
+
+/**
+ * Throughput of the running server under many concurrent clients, with request handling
+ * on Tomcat worker threads ({@code threads=platform}) or on virtual threads
+ * ({@code threads=virtual}, which needs Java 21 and falls back to platform threads
+ * otherwise). The connection pool has a fixed size and every connection is held for
+ * {@link Server#latency} extra milliseconds to simulate a slow database, so the owner
+ * page is bound by the pool either way; the question is how well the vet list, which is
+ * served from the cache, keeps up while owner requests wait for a connection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ThreadingBenchmarks {
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(192)
+	public int showOwner(Server server) throws Exception {
+		return server.get("/owners/" + server.seeded.ownerId());
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(64)
+	public int showVetList(Server server) throws Exception {
+		return server.get("/vets.html");
+	}
+
+	/**
+	 * The application listening on a random port.
+	 */
+	@State(Scope.Benchmark)
+	public static class Server {
+
+		@Param({ "platform", "virtual" })
+		public String threads;
+
+		@Param("10")
+		public int poolSize;
+
+		@Param("200")
+		public int workerThreads;
+
+		@Param("5")
+		public int latency;
+
+		private ConfigurableApplicationContext context;
+
+		private HttpClient client;
+
+		private String root;
+
+		private Seeded seeded;
+
+		@Setup(Level.Trial)
+		public void start() {
+			int latency = this.latency;
+			this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(), "server.port=0",
+						"spring.main.banner-mode=off", "logging.level.root=WARN",
+						"spring.threads.virtual.enabled=" + "virtual".equals(this.threads),
+						"spring.datasource.hikari.maximum-pool-size=" + this.poolSize,
+						"server.tomcat.threads.max=" + this.workerThreads)
+				.initializers((context) -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+					@Override
+					public Object postProcessAfterInitialization(Object bean, String name) {
+						return (bean instanceof DataSource dataSource) ? new SlowDataSource(dataSource, latency) : bean;
+					}
+				}))
+				.run();
+			this.seeded = new ClinicDataSeeder(this.context.getBean(JdbcTemplate.class)).seed(100, 2, 3);
+			this.root = "http://localhost:"
+					+ ((WebServerApplicationContext) this.context).getWebServer().getPort();
+			this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		}
+
+		@TearDown(Level.Trial)
+		public void stop() {
+			if (this.context != null) {
+				this.context.close();
+			}
+		}
+
+		int get(String path) throws IOException, InterruptedException {
+			HttpRequest request = HttpRequest.newBuilder(URI.create(this.root + path)).build();
+			return this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		}
+
+	}
+
+	/**
+	 * Holds on to each connection it hands out for a while, like a query waiting for a
+	 * slow database.
+	 */
+	static class SlowDataSource extends DelegatingDataSource {
+
+		private final int latency;
+
+		SlowDataSource(DataSource target, int latency) {
+			super(target);
+			this.latency = latency;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			Connection connection = super.getConnection();
+			try {
+				Thread.sleep(this.latency);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return connection;
+		}
+
+	}
+
+}
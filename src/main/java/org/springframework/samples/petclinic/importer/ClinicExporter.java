@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.samples.petclinic.owner.OwnerExportRow;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Exports all owners with their pets and visits in the format that {@link ClinicImporter}
+ * reads. The rows are read from a forward-only cursor and written as they arrive, so
+ * memory use does not depend on the number of owners. They are projections rather than
+ * entities, so nothing accumulates in the persistence context while the cursor is read.
+ */
+@Component
+public class ClinicExporter {
+
+	private final OwnerRepository owners;
+
+	private final TransactionTemplate transactions;
+
+	public ClinicExporter(OwnerRepository owners, PlatformTransactionManager transactionManager) {
+		this.owners = owners;
+		this.transactions = new TransactionTemplate(transactionManager);
+		this.transactions.setReadOnly(true);
+	}
+
+	/**
+	 * Export all owners.
+	 * @param output where to write the records, flushed but not closed when done
+	 * @param format the format of the records
+	 * @return the number of owners exported
+	 * @throws IOException if the records cannot be written
+	 */
+	public long exportTo(OutputStream output, ImportFormat format) throws IOException {
+		RowWriter writer = format.create(output);
+		try {
+			Long exported = this.transactions.execute((status) -> {
+				try (Stream<OwnerExportRow> rows = this.owners.streamExportRows()) {
+					return write(rows.iterator(), writer);
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+			writer.flush();
+			return exported;
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private static long write(Iterator<OwnerExportRow> rows, RowWriter writer) throws IOException {
+		long exported = 0;
+		Integer ownerId = null;
+		Integer petId = null;
+		while (rows.hasNext()) {
+			OwnerExportRow row = rows.next();
+			if (ownerId == null || ownerId != row.ownerId()) {
+				writer.write("owner", row.firstName(), row.lastName(), row.address(), row.city(), row.telephone());
+				ownerId = row.ownerId();
+				petId = null;
+				exported++;
+			}
+			if (row.petId() != null && !row.petId().equals(petId)) {
+				writer.write("pet", row.petName(), date(row.birthDate()), row.type());
+				petId = row.petId();
+			}
+			if (row.visitId() != null) {
+				writer.write("visit", date(row.visitDate()), row.description());
+			}
+		}
+		return exported;
+	}
+
+	private static String date(LocalDate date) {
+		return (date != null) ? date.toString() : null;
+	}
+
+}
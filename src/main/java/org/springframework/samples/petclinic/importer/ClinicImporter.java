@@ -0,0 +1,361 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerListItem;
+import org.springframework.samples.petclinic.owner.OwnerNameDirectory;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetTypeRegistry;
+import org.springframework.samples.petclinic.owner.PetTypes;
+import org.springframework.samples.petclinic.owner.PetValidator;
+import org.springframework.samples.petclinic.system.CacheChangeLog;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Imports owners with their pets and visits from a stream of {@link ImportFormat
+ * records}, for migrating whole clinics. Records are validated like the forms validate
+ * them and written with JDBC batches of {@link #batchSize} records, each batch in a
+ * transaction, so memory use does not depend on the size of the file. A record that fails
+ * validation is reported and skipped along with the pets and visits that follow it. If a
+ * batch fails in the database its owners are retried one at a time, so that only the
+ * failing ones are rejected. The owners of a batch are added to the typeahead once it
+ * commits, and written to the {@link CacheChangeLog} of a cluster, when there is one, so
+ * that the other nodes add them to theirs.
+ */
+@Component
+public class ClinicImporter {
+
+	private static final String INSERT_OWNER = "INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_PET = "INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)";
+
+	private static final String INSERT_VISIT = "INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)";
+
+	private static final String INSERT_SUMMARY = "INSERT INTO owner_summary (owner_id, first_name, last_name, address, city, telephone, pet_names, pet_count, last_visit) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbc;
+
+	private final SessionFactoryImplementor sessionFactory;
+
+	private final TransactionTemplate transactions;
+
+	private final Validator validator;
+
+	private final PetTypeRegistry types;
+
+	private final OwnerNameDirectory names;
+
+	private final ObjectProvider<CacheChangeLog> changeLog;
+
+	private final int batchSize;
+
+	public ClinicImporter(JdbcTemplate jdbc, EntityManagerFactory entityManagerFactory,
+			PlatformTransactionManager transactionManager, Validator validator, PetTypeRegistry types,
+			OwnerNameDirectory names, ObjectProvider<CacheChangeLog> changeLog,
+			@Value("${app.import.batch-size:500}") int batchSize) {
+		this.jdbc = jdbc;
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		this.transactions = new TransactionTemplate(transactionManager);
+		this.validator = validator;
+		this.types = types;
+		this.names = names;
+		this.changeLog = changeLog;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Import the records of a file.
+	 * @param input the content of the file, closed when done
+	 * @param format the format of the file
+	 * @return what was imported and what was rejected
+	 * @throws IOException if the file cannot be read
+	 */
+	public ImportReport importFrom(InputStream input, ImportFormat format) throws IOException {
+		long start = System.nanoTime();
+		ImportReport report = new ImportReport();
+		PetTypes petTypes = this.types.getPetTypes();
+		List<PendingOwner> batch = new ArrayList<>();
+		int batched = 0;
+		PendingOwner owner = null;
+		PendingPet pet = null;
+		try (RowReader rows = format.open(input)) {
+			for (ImportRow row = rows.next(); row != null; row = rows.next()) {
+				report.read();
+				if (row.error() != null) {
+					report.reject(row.line(), row.error());
+				}
+				else if ("owner".equals(row.kind())) {
+					if (batched >= this.batchSize) {
+						write(batch, report);
+						batch.clear();
+						batched = 0;
+					}
+					owner = owner(row, report);
+					pet = null;
+					if (owner != null) {
+						batch.add(owner);
+						batched++;
+					}
+				}
+				else if ("pet".equals(row.kind())) {
+					pet = (owner != null) ? pet(row, owner, petTypes, report) : null;
+					if (owner == null) {
+						report.reject(row.line(), "no valid owner before this pet");
+					}
+					else if (pet != null) {
+						batched++;
+					}
+				}
+				else if ("visit".equals(row.kind())) {
+					if (pet == null) {
+						report.reject(row.line(), "no valid pet before this visit");
+					}
+					else if (visit(row, pet, report)) {
+						batched++;
+					}
+				}
+				else {
+					report.reject(row.line(), "unknown kind of record: " + row.kind());
+				}
+			}
+		}
+		write(batch, report);
+		report.finish(Duration.ofNanos(System.nanoTime() - start));
+		return report;
+	}
+
+	private PendingOwner owner(ImportRow row, ImportReport report) {
+		Owner owner = new Owner();
+		owner.setFirstName(row.get("firstName"));
+		owner.setLastName(row.get("lastName"));
+		owner.setAddress(row.get("address"));
+		owner.setCity(row.get("city"));
+		owner.setTelephone(row.get("telephone"));
+		String errors = violations(this.validator.validate(owner));
+		if (errors != null) {
+			report.reject(row.line(), errors);
+			return null;
+		}
+		return new PendingOwner(row.line(), owner, new ArrayList<>());
+	}
+
+	private PendingPet pet(ImportRow row, PendingOwner owner, PetTypes petTypes, ImportReport report) {
+		Pet pet = new Pet();
+		pet.setName(row.get("name"));
+		pet.setType(petTypes.findByName(row.get("type")));
+		Errors errors = new BeanPropertyBindingResult(pet, "pet");
+		if (pet.getType() == null && row.get("type") != null && !row.get("type").isBlank()) {
+			errors.rejectValue("type", "unknown", "unknown: " + row.get("type"));
+		}
+		try {
+			pet.setBirthDate(date(row.get("birthDate")));
+		}
+		catch (DateTimeParseException ex) {
+			errors.rejectValue("birthDate", "typeMismatch", "invalid date");
+		}
+		new PetValidator().validate(pet, errors);
+		if (errors.hasErrors()) {
+			Map<String, String> messages = new LinkedHashMap<>();
+			for (FieldError error : errors.getFieldErrors()) {
+				messages.putIfAbsent(error.getField(), error.getField() + " " + error.getDefaultMessage());
+			}
+			report.reject(row.line(), String.join(", ", messages.values()));
+			return null;
+		}
+		PendingPet pending = new PendingPet(pet, new ArrayList<>());
+		owner.pets().add(pending);
+		return pending;
+	}
+
+	private boolean visit(ImportRow row, PendingPet pet, ImportReport report) {
+		Visit visit = new Visit();
+		visit.setDescription(row.get("description"));
+		try {
+			visit.setDate(date(row.get("date")));
+		}
+		catch (DateTimeParseException ex) {
+			report.reject(row.line(), "date invalid date");
+			return false;
+		}
+		if (visit.getDate() == null) {
+			report.reject(row.line(), "date required");
+			return false;
+		}
+		String errors = violations(this.validator.validate(visit));
+		if (errors != null) {
+			report.reject(row.line(), errors);
+			return false;
+		}
+		pet.visits().add(visit);
+		return true;
+	}
+
+	private static LocalDate date(String value) {
+		return (value == null || value.isBlank()) ? null : LocalDate.parse(value.trim());
+	}
+
+	private static String violations(Set<? extends ConstraintViolation<?>> violations) {
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream()
+			.map((violation) -> violation.getPropertyPath() + " " + violation.getMessage())
+			.sorted()
+			.collect(Collectors.joining(", "));
+	}
+
+	private void write(List<PendingOwner> owners, ImportReport report) {
+		if (owners.isEmpty()) {
+			return;
+		}
+		try {
+			this.transactions.executeWithoutResult((status) -> insert(owners));
+			saved(owners, report);
+		}
+		catch (DataAccessException ex) {
+			for (PendingOwner owner : owners) {
+				try {
+					this.transactions.executeWithoutResult((status) -> insert(List.of(owner)));
+					saved(List.of(owner), report);
+				}
+				catch (DataAccessException failure) {
+					report.reject(owner.line(),
+							"not saved: " + NestedExceptionUtils.getMostSpecificCause(failure).getMessage());
+				}
+			}
+		}
+	}
+
+	private void insert(List<PendingOwner> owners) {
+		List<Object[]> ownerRows = new ArrayList<>();
+		List<Object[]> petRows = new ArrayList<>();
+		List<Object[]> visitRows = new ArrayList<>();
+		List<Object[]> summaryRows = new ArrayList<>();
+		try (StatelessSession session = this.sessionFactory.openStatelessSession()) {
+			for (PendingOwner pending : owners) {
+				Owner owner = pending.owner();
+				owner.setId(nextId(session, owner));
+				ownerRows.add(new Object[] { owner.getId(), owner.getFirstName(), owner.getLastName(),
+						owner.getAddress(), owner.getCity(), owner.getTelephone() });
+				for (PendingPet pendingPet : pending.pets()) {
+					Pet pet = pendingPet.pet();
+					pet.setId(nextId(session, pet));
+					petRows.add(new Object[] { pet.getId(), pet.getName(), Date.valueOf(pet.getBirthDate()),
+							pet.getType().getId(), owner.getId() });
+					for (Visit visit : pendingPet.visits()) {
+						visit.setId(nextId(session, visit));
+						visitRows.add(new Object[] { visit.getId(), pet.getId(), Date.valueOf(visit.getDate()),
+								visit.getDescription() });
+					}
+				}
+				summaryRows.add(summaryRow(pending));
+			}
+		}
+		this.jdbc.batchUpdate(INSERT_OWNER, ownerRows);
+		if (!petRows.isEmpty()) {
+			this.jdbc.batchUpdate(INSERT_PET, petRows);
+		}
+		if (!visitRows.isEmpty()) {
+			this.jdbc.batchUpdate(INSERT_VISIT, visitRows);
+		}
+		this.jdbc.batchUpdate(INSERT_SUMMARY, summaryRows);
+		this.changeLog.ifAvailable((log) -> log.record(this.jdbc, Owner.class,
+				owners.stream().map((pending) -> pending.owner().getId()).toList()));
+		this.names.update(owners.stream().map(PendingOwner::owner).toList());
+	}
+
+	/**
+	 * The row of the {@link OwnerSummary} of an owner, computed from the records rather
+	 * than read back from the tables.
+	 */
+	private static Object[] summaryRow(PendingOwner pending) {
+		Owner owner = pending.owner();
+		List<String> petNames = pending.pets().stream().map((pet) -> pet.pet().getName()).sorted().toList();
+		LocalDate lastVisit = pending.pets()
+			.stream()
+			.flatMap((pet) -> pet.visits().stream())
+			.map(Visit::getDate)
+			.max(Comparator.naturalOrder())
+			.orElse(null);
+		return new Object[] { owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+				owner.getCity(), owner.getTelephone(),
+				petNames.isEmpty() ? null : String.join(OwnerListItem.PET_NAME_SEPARATOR, petNames), petNames.size(),
+				lastVisit != null ? Date.valueOf(lastVisit) : null };
+	}
+
+	/**
+	 * Take the next id from the same generator, and the same block of ids, that Hibernate
+	 * uses when the entity is saved through a repository.
+	 */
+	private Integer nextId(StatelessSession session, BaseEntity entity) {
+		EntityPersister persister = this.sessionFactory.getMappingMetamodel().getEntityDescriptor(entity.getClass());
+		return (Integer) ((BeforeExecutionGenerator) persister.getGenerator())
+			.generate((SharedSessionContractImplementor) session, entity, null, EventType.INSERT);
+	}
+
+	private static void saved(List<PendingOwner> owners, ImportReport report) {
+		for (PendingOwner owner : owners) {
+			report.saved(1, owner.pets().size(), owner.pets().stream().mapToLong((pet) -> pet.visits().size()).sum());
+		}
+	}
+
+	private record PendingOwner(long line, Owner owner, List<PendingPet> pets) {
+
+	}
+
+	private record PendingPet(Pet pet, List<Visit> visits) {
+
+	}
+
+}
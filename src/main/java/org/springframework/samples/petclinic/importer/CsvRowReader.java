@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads CSV records, one per line, with fields optionally quoted with <code>"</code> and
+ * quotes inside quoted fields doubled. Blank lines and lines starting with <code>#</code>
+ * are skipped.
+ */
+class CsvRowReader implements RowReader {
+
+	private final BufferedReader reader;
+
+	private long line;
+
+	CsvRowReader(BufferedReader reader) {
+		this.reader = reader;
+	}
+
+	@Override
+	public ImportRow next() throws IOException {
+		String text;
+		do {
+			text = this.reader.readLine();
+			if (text == null) {
+				return null;
+			}
+			this.line++;
+		}
+		while (text.isBlank() || text.startsWith("#"));
+		List<String> values = split(text);
+		if (values == null) {
+			return ImportRow.malformed(this.line, "unterminated quoted field");
+		}
+		String kind = values.get(0).trim();
+		List<String> names = ImportFormat.FIELDS.get(kind);
+		if (names == null) {
+			return new ImportRow(this.line, kind, Map.of(), null);
+		}
+		if (values.size() - 1 > names.size()) {
+			return ImportRow.malformed(this.line,
+					"expected at most " + names.size() + " fields for " + kind + " but got " + (values.size() - 1));
+		}
+		Map<String, String> fields = new HashMap<>();
+		for (int i = 1; i < values.size(); i++) {
+			fields.put(names.get(i - 1), values.get(i));
+		}
+		return new ImportRow(this.line, kind, fields, null);
+	}
+
+	/**
+	 * @return the fields of the line, or <code>null</code> if a quote is not closed
+	 */
+	static List<String> split(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					value.append(c);
+				}
+				else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				}
+				else {
+					quoted = false;
+				}
+			}
+			else if (c == '"') {
+				quoted = true;
+			}
+			else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			}
+			else {
+				value.append(c);
+			}
+		}
+		if (quoted) {
+			return null;
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes CSV records that {@link CsvRowReader} reads back, quoting the values that
+ * contain commas or quotes. Records are read one line at a time, so line breaks inside
+ * values are written as spaces.
+ */
+class CsvRowWriter implements RowWriter {
+
+	private final Writer writer;
+
+	CsvRowWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void write(String kind, String... values) throws IOException {
+		this.writer.write(kind);
+		for (String value : values) {
+			this.writer.write(',');
+			if (value != null) {
+				this.writer.write(quote(value.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ')));
+			}
+		}
+		this.writer.write('\n');
+	}
+
+	private static String quote(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.writer.flush();
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Downloads all owners, for example with
+ * <code>curl -o clinic.csv http://localhost:8080/owners/export?format=CSV</code>. The
+ * records are written straight to the response as they are read.
+ */
+@Controller
+class ExportController {
+
+	private final ClinicExporter exporter;
+
+	ExportController(ClinicExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	@GetMapping("/owners/export")
+	public void exportOwners(@RequestParam(defaultValue = "NDJSON") ImportFormat format, HttpServletResponse response)
+			throws IOException {
+		response.setContentType(format.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment()
+					.filename("clinic." + format.name().toLowerCase(Locale.ROOT))
+					.build()
+					.toString());
+		this.exporter.exportTo(response.getOutputStream(), format);
+	}
+
+}
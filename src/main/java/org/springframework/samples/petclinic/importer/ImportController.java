@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Accepts import files uploaded as <code>multipart/form-data</code>, for example with
+ * <code>curl -F file=@clinic.csv http://localhost:8080/owners/import</code>.
+ */
+@Controller
+class ImportController {
+
+	private final ClinicImporter importer;
+
+	ImportController(ClinicImporter importer) {
+		this.importer = importer;
+	}
+
+	@PostMapping("/owners/import")
+	@ResponseBody
+	public ImportReport importOwners(@RequestParam("file") MultipartFile file,
+			@RequestParam(required = false) ImportFormat format) throws IOException {
+		return this.importer.importFrom(file.getInputStream(),
+				(format != null) ? format : ImportFormat.of(file.getOriginalFilename()));
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The formats of import and export files. Both have one record per line, an owner
+ * followed by its pets, each pet followed by its visits:
+ *
+ * <pre class="code">
+ * owner,George,Franklin,110 W. Liberty St.,Madison,6085551023
+ * pet,Leo,2010-09-07,cat
+ * visit,2013-01-01,rabies shot
+ * </pre>
+ *
+ * In CSV the fields of each kind of record come in the order of {@link #FIELDS}, in
+ * NDJSON they are named, with the kind in a <code>kind</code> field.
+ */
+public enum ImportFormat {
+
+	CSV, NDJSON;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The fields of each kind of record, in CSV order.
+	 */
+	static final Map<String, List<String>> FIELDS = Map.of("owner",
+			List.of("firstName", "lastName", "address", "city", "telephone"), "pet",
+			List.of("name", "birthDate", "type"), "visit", List.of("date", "description"));
+
+	/**
+	 * @param name the name of the file
+	 * @return {@link #NDJSON} for <code>.ndjson</code> and <code>.jsonl</code> files,
+	 * {@link #CSV} otherwise
+	 */
+	public static ImportFormat of(String name) {
+		String lowerCase = (name != null) ? name.toLowerCase(Locale.ROOT) : "";
+		return (lowerCase.endsWith(".ndjson") || lowerCase.endsWith(".jsonl")) ? NDJSON : CSV;
+	}
+
+	/**
+	 * @return the media type of files in this format
+	 */
+	public String getContentType() {
+		return (this == NDJSON) ? "application/x-ndjson" : "text/csv";
+	}
+
+	RowReader open(InputStream input) {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		return (this == NDJSON) ? new NdjsonRowReader(reader) : new CsvRowReader(reader);
+	}
+
+	RowWriter create(OutputStream output) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+		return (this == NDJSON) ? new NdjsonRowWriter(writer) : new CsvRowWriter(writer);
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of an import: how many records were read and saved, how fast, and what was
+ * wrong with the records that were not saved. Only the first {@link #MAX_ERRORS} errors
+ * are kept, the others are only counted.
+ */
+public class ImportReport {
+
+	static final int MAX_ERRORS = 1000;
+
+	private long rows;
+
+	private long owners;
+
+	private long pets;
+
+	private long visits;
+
+	private long errorCount;
+
+	private final List<Error> errors = new ArrayList<>();
+
+	private Duration duration = Duration.ZERO;
+
+	public long getRows() {
+		return this.rows;
+	}
+
+	public long getOwners() {
+		return this.owners;
+	}
+
+	public long getPets() {
+		return this.pets;
+	}
+
+	public long getVisits() {
+		return this.visits;
+	}
+
+	public long getErrorCount() {
+		return this.errorCount;
+	}
+
+	public List<Error> getErrors() {
+		return Collections.unmodifiableList(this.errors);
+	}
+
+	public double getSeconds() {
+		return this.duration.toNanos() / 1e9;
+	}
+
+	public long getRowsPerSecond() {
+		return this.duration.isZero() ? this.rows : (long) (this.rows / getSeconds());
+	}
+
+	void read() {
+		this.rows++;
+	}
+
+	void saved(long owners, long pets, long visits) {
+		this.owners += owners;
+		this.pets += pets;
+		this.visits += visits;
+	}
+
+	void reject(long line, String message) {
+		this.errorCount++;
+		if (this.errors.size() < MAX_ERRORS) {
+			this.errors.add(new Error(line, message));
+		}
+	}
+
+	void finish(Duration duration) {
+		this.duration = duration;
+	}
+
+	@Override
+	public String toString() {
+		return "Imported " + this.owners + " owners, " + this.pets + " pets and " + this.visits + " visits from "
+				+ this.rows + " rows in " + String.format("%.3f", getSeconds()) + "s (" + getRowsPerSecond()
+				+ " rows/s), " + this.errorCount + " rows rejected";
+	}
+
+	/**
+	 * A record that was not saved.
+	 *
+	 * @param line the line of the record
+	 * @param message what was wrong with it
+	 */
+	public record Error(long line, String message) {
+
+	}
+
+}
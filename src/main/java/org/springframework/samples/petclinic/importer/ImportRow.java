@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.util.Map;
+
+/**
+ * One record of an import file: an owner, a pet of the last owner or a visit of the last
+ * pet.
+ *
+ * @param line the line number in the file, starting at 1
+ * @param kind <code>owner</code>, <code>pet</code> or <code>visit</code>
+ * @param fields the values by field name
+ * @param error why the line could not be read, or <code>null</code>
+ */
+record ImportRow(long line, String kind, Map<String, String> fields, String error) {
+
+	static ImportRow malformed(long line, String error) {
+		return new ImportRow(line, null, Map.of(), error);
+	}
+
+	String get(String field) {
+		return this.fields.get(field);
+	}
+
+}
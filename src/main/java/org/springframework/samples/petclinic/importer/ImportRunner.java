@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports the files given with <code>--import=&lt;file&gt;</code> on the command line
+ * when the application starts. Add <code>--spring.main.web-application-type=none</code>
+ * to exit once they are imported.
+ */
+@Component
+class ImportRunner implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(ImportRunner.class);
+
+	private final ClinicImporter importer;
+
+	ImportRunner(ClinicImporter importer) {
+		this.importer = importer;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		List<String> files = args.getOptionValues("import");
+		if (files == null) {
+			return;
+		}
+		for (String file : files) {
+			Path path = Path.of(file);
+			ImportReport report = this.importer.importFrom(Files.newInputStream(path), ImportFormat.of(file));
+			logger.info(path + ": " + report);
+			for (ImportReport.Error error : report.getErrors()) {
+				logger.warn(path + ":" + error.line() + ": " + error.message());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads newline delimited JSON records, one object per line with a <code>kind</code>
+ * field. Blank lines are skipped.
+ */
+class NdjsonRowReader implements RowReader {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private final BufferedReader reader;
+
+	private long line;
+
+	NdjsonRowReader(BufferedReader reader) {
+		this.reader = reader;
+	}
+
+	@Override
+	public ImportRow next() throws IOException {
+		String text;
+		do {
+			text = this.reader.readLine();
+			if (text == null) {
+				return null;
+			}
+			this.line++;
+		}
+		while (text.isBlank());
+		JsonNode node;
+		try {
+			node = mapper.readTree(text);
+		}
+		catch (JsonProcessingException ex) {
+			return ImportRow.malformed(this.line, "invalid JSON: " + ex.getOriginalMessage());
+		}
+		if (!node.isObject()) {
+			return ImportRow.malformed(this.line, "expected a JSON object");
+		}
+		Map<String, String> fields = new HashMap<>();
+		for (Iterator<Map.Entry<String, JsonNode>> iterator = node.fields(); iterator.hasNext();) {
+			Map.Entry<String, JsonNode> field = iterator.next();
+			if (!field.getValue().isNull()) {
+				fields.put(field.getKey(), field.getValue().asText());
+			}
+		}
+		return new ImportRow(this.line, fields.remove("kind"), fields, null);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+}
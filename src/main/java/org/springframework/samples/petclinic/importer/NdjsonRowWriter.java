@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes newline delimited JSON records, one object per line with a <code>kind</code>
+ * field and the values that are not <code>null</code>.
+ */
+class NdjsonRowWriter implements RowWriter {
+
+	private static final JsonFactory factory = new JsonFactory();
+
+	private final JsonGenerator generator;
+
+	NdjsonRowWriter(Writer writer) throws IOException {
+		this.generator = factory.createGenerator(writer);
+	}
+
+	@Override
+	public void write(String kind, String... values) throws IOException {
+		List<String> names = ImportFormat.FIELDS.get(kind);
+		this.generator.writeStartObject();
+		this.generator.writeStringField("kind", kind);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				this.generator.writeStringField(names.get(i), values[i]);
+			}
+		}
+		this.generator.writeEndObject();
+		this.generator.writeRaw('\n');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.generator.flush();
+	}
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of an import file one at a time.
+ */
+interface RowReader extends Closeable {
+
+	/**
+	 * @return the next record, or <code>null</code> at the end of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	ImportRow next() throws IOException;
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes records in the format of an import file, one at a time.
+ */
+interface RowWriter extends Flushable {
+
+	/**
+	 * @param kind <code>owner</code>, <code>pet</code> or <code>visit</code>
+	 * @param values the values of the record in the order of {@link ImportFormat#FIELDS},
+	 * <code>null</code> for missing values
+	 * @throws IOException if the record cannot be written
+	 */
+	void write(String kind, String... values) throws IOException;
+
+}
@@ -15,15 +15,26 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
+
 import java.io.Serializable;
+import java.time.Instant;
+
+import org.hibernate.annotations.UpdateTimestamp;
 
 /**
  * Simple JavaBean domain object with an id property. Used as a base class for objects
- * needing this property.
+ * needing this property. It also carries the optimistic locking version and the time of
+ * the last update, from which the web layer derives ETags and Last-Modified headers.
+ * <p>
+ * Ids come from a sequence per table, which Hibernate names after the table
+ * (<code>owners_seq</code> for <code>owners</code>), fetched in blocks of 50, so
+ * Hibernate knows the id of a new entity before inserting it and can batch the inserts.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -32,9 +43,16 @@ import java.io.Serializable;
 public class BaseEntity implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE)
 	private Integer id;
 
+	@Version
+	private Integer version;
+
+	@UpdateTimestamp
+	@Column(name = "updated_at")
+	private Instant updatedAt;
+
 	public Integer getId() {
 		return id;
 	}
@@ -43,6 +61,18 @@ public class BaseEntity implements Serializable {
 		this.id = id;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
 	public boolean isNew() {
 		return this.id == null;
 	}
@@ -15,8 +15,7 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -27,11 +26,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotEmpty;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.samples.petclinic.model.Person;
 
@@ -47,6 +45,9 @@ import org.springframework.samples.petclinic.model.Person;
 @Table(name = "owners")
 public class Owner extends Person {
 
+	private static final Comparator<Pet> BY_NAME = Comparator.comparing(Pet::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
 	@Column(name = "address")
 	@NotEmpty
 	private String address;
@@ -63,6 +64,9 @@ public class Owner extends Person {
 	@OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
 	private Set<Pet> pets;
 
+	@Transient
+	private List<Pet> sortedPets;
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -96,17 +100,25 @@ public class Owner extends Person {
 
 	protected void setPetsInternal(Set<Pet> pets) {
 		this.pets = pets;
+		this.sortedPets = null;
 	}
 
+	/**
+	 * @return the pets sorted by name, sorted once and then kept until a pet is added
+	 */
 	public List<Pet> getPets() {
-		List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-		PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedPets);
+		List<Pet> sortedPets = this.sortedPets;
+		if (sortedPets == null) {
+			sortedPets = getPetsInternal().stream().sorted(BY_NAME).toList();
+			this.sortedPets = sortedPets;
+		}
+		return sortedPets;
 	}
 
 	public void addPet(Pet pet) {
 		if (pet.isNew()) {
 			getPetsInternal().add(pet);
+			this.sortedPets = null;
 		}
 		pet.setOwner(this);
 	}
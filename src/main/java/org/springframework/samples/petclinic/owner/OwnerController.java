@@ -15,30 +15,40 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.samples.petclinic.system.Form;
 import org.springframework.samples.petclinic.system.InputField;
-import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.system.Pagination;
+import org.springframework.samples.petclinic.system.Revision;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.support.RequestContext;
+import org.springframework.web.util.UriUtils;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 /**
@@ -50,13 +60,26 @@ import jakarta.validation.Valid;
 @Controller
 class OwnerController {
 
+	private static final int PAGE_SIZE = 5;
+
+	private static final int APPROXIMATE_TOTAL_LIMIT = 1000;
+
+	private static final int MAX_SUGGESTIONS = 20;
+
 	private final OwnerRepository owners;
 
-	private final VisitRepository visits;
+	private final OwnerGraphLoader graphs;
+
+	private final OwnerNameDirectory names;
+
+	private final OwnerSummaryRepository summaries;
 
-	public OwnerController(OwnerRepository owners, VisitRepository visits) {
+	public OwnerController(OwnerRepository owners, OwnerGraphLoader graphs, OwnerNameDirectory names,
+			OwnerSummaryRepository summaries) {
 		this.owners = owners;
-		this.visits = visits;
+		this.graphs = graphs;
+		this.names = names;
+		this.summaries = summaries;
 	}
 
 	@InitBinder
@@ -71,33 +94,58 @@ class OwnerController {
 	}
 
 	@PostMapping("/owners/new")
+	@Transactional
 	public String processCreationForm(@Valid Owner owner, BindingResult result, Model model) {
 		if (result.hasErrors()) {
 			return initCreationForm(owner, model);
 		}
 		else {
 			this.owners.save(owner);
+			this.summaries.refresh(owner.getId());
+			this.names.update(owner);
 			return "redirect:/owners/" + owner.getId();
 		}
 	}
 
+	/**
+	 * Typeahead for the owner search, answered from the {@link OwnerNameDirectory}
+	 * without querying the data store.
+	 * @param lastName the start of the last name typed so far
+	 * @param limit the maximum number of owners to return
+	 * @return the first matching owners, by last name and first name
+	 */
+	@GetMapping("/owners/suggest")
+	@ResponseBody
+	public List<OwnerSuggestion> suggestOwners(@RequestParam(defaultValue = "") String lastName,
+			@RequestParam(defaultValue = "10") int limit) {
+		if (!StringUtils.hasText(lastName)) {
+			return List.of();
+		}
+		return this.names.suggest(lastName.trim(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+	}
+
 	@GetMapping("/owners/find")
 	public String initFindForm(Owner owner) {
 		return "owners/findOwners";
 	}
 
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(defaultValue = "1") int page,
+			@RequestParam(required = false) String cursor, Owner owner, BindingResult result, Model model) {
 
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
 			owner.setLastName(""); // empty string signifies broadest possible search
 		}
 
+		// a cursor (even an empty one) selects keyset pagination
+		if (cursor != null) {
+			return scrollOwners(cursor, owner, result, model);
+		}
+
 		// find owners by last name
 		String lastName = owner.getLastName();
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, lastName);
+		Page<OwnerListItem> ownersResults = findPaginatedForOwnersLastName(page, lastName);
 		if (ownersResults.isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
@@ -105,8 +153,7 @@ class OwnerController {
 		}
 		else if (ownersResults.getTotalElements() == 1) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			return "redirect:/owners/" + ownersResults.iterator().next().getId();
 		}
 		else {
 			// multiple owners found
@@ -115,35 +162,48 @@ class OwnerController {
 		}
 	}
 
-	private String addPaginationModel(int page, Model model, String lastName, Page<Owner> paginated) {
-		List<Owner> listOwners = paginated.getContent();
-		model.addAttribute("first", page == 1);
-		model.addAttribute("last", page == paginated.getTotalPages());
-		model.addAttribute("previous", page - 1);
-		model.addAttribute("next", page + 1);
-		model.addAttribute("pages",
-				IntStream.range(1, paginated.getTotalPages() + 1)
-					.mapToObj(value -> pagemodel(value, page))
-					.collect(Collectors.toList()));
-		model.addAttribute("hasPages", paginated.getTotalPages() > 1);
-		model.addAttribute("totalPages", paginated.getTotalPages());
+	private String addPaginationModel(int page, Model model, String lastName, Page<OwnerListItem> paginated) {
+		List<OwnerListItem> listOwners = paginated.getContent();
+		Pagination.of(page, paginated.getTotalPages()).addTo(model);
+		model.addAttribute("lastNameParam", UriUtils.encodeQueryParam(lastName, StandardCharsets.UTF_8));
 		model.addAttribute("listOwners", listOwners);
 		return "owners/ownersList";
 	}
 
-	private Map<String, Object> pagemodel(int value, int page) {
-		HashMap<String, Object> map = new HashMap<>();
-		map.put("current", value == page);
-		map.put("number", value);
-		return map;
-	}
+	private Page<OwnerListItem> findPaginatedForOwnersLastName(int page, String lastname) {
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
+		return this.summaries.findListItemsByLastName(lastname, pageable);
 
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
+	}
 
+	private String scrollOwners(String cursor, Owner owner, BindingResult result, Model model) {
+		String lastName = owner.getLastName();
+		boolean first = !StringUtils.hasLength(cursor);
+		Window<OwnerListItem> window = this.summaries.findByLastNameStartingWith(lastName, OwnerCursor.decode(cursor),
+				OwnerCursor.SORT, Limit.of(PAGE_SIZE));
+		if (first && window.isEmpty()) {
+			// no owners found
+			result.rejectValue("lastName", "notFound", "not found");
+			return "owners/findOwners";
+		}
+		if (first && window.size() == 1 && !window.hasNext()) {
+			// 1 owner found
+			return "redirect:/owners/" + window.getContent().get(0).getId();
+		}
+		model.addAttribute("keyset", true);
+		model.addAttribute("lastNameParam", UriUtils.encodeQueryParam(lastName, StandardCharsets.UTF_8));
+		if (window.hasNext()) {
+			model.addAttribute("nextCursor", OwnerCursor.encode(window.getContent().get(window.size() - 1)));
+		}
+		if (first) {
+			// counting is bounded so that the first page stays cheap for broad searches
+			int found = this.summaries.findIdsByLastName(lastName, Limit.of(APPROXIMATE_TOTAL_LIMIT + 1)).size();
+			model.addAttribute("approximateTotal",
+					found > APPROXIMATE_TOTAL_LIMIT ? "more than " + APPROXIMATE_TOTAL_LIMIT : String.valueOf(found));
+		}
+		model.addAttribute("listOwners", window.getContent());
+		return "owners/ownersList";
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
@@ -153,31 +213,60 @@ class OwnerController {
 		return initCreationForm(owner, model);
 	}
 
+	/**
+	 * Save the edited owner if nobody else has saved it since the form was loaded. The
+	 * form posts back the version it was loaded with; an owner changed in the meantime is
+	 * rejected with a 409 and the form shown again, and the transaction is rolled back.
+	 */
 	@PostMapping("/owners/{ownerId}/edit")
+	@Transactional
 	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result, @PathVariable("ownerId") int ownerId,
-			Model model) {
+			Model model, HttpServletResponse response) {
+		if (owner.getVersion() == null) {
+			result.reject("version", "The form was posted without the version of the owner, reload it and edit again");
+		}
 		if (result.hasErrors()) {
-			return initCreationForm(owner, model);
+			return initUpdateFormWithErrors(owner, result, model);
 		}
-		else {
-			owner.setId(ownerId);
+		owner.setId(ownerId);
+		try {
 			this.owners.save(owner);
-			return "redirect:/owners/{ownerId}";
+			this.summaries.refresh(owner.getId());
+		}
+		catch (ObjectOptimisticLockingFailureException ex) {
+			TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+			result.reject("concurrentModification",
+					"Someone else changed this owner since the form was loaded, reload it to see their changes");
+			response.setStatus(HttpStatus.CONFLICT.value());
+			return initUpdateFormWithErrors(owner, result, model);
 		}
+		this.names.update(owner);
+		return "redirect:/owners/{ownerId}";
+	}
+
+	private String initUpdateFormWithErrors(Owner owner, BindingResult result, Model model) {
+		model.addAttribute("globalErrors",
+				result.getGlobalErrors().stream().map(ObjectError::getDefaultMessage).toList());
+		return initCreationForm(owner, model);
 	}
 
 	/**
 	 * Custom handler for displaying an owner.
 	 * @param ownerId the ID of the owner to display
+	 * @param request the current request, answered with a 304 if the client's copy is
+	 * current
 	 * @return a ModelMap with the model attributes for the view
 	 */
 	@GetMapping("/owners/{ownerId}")
-	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
-		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Owner owner = this.owners.findById(ownerId);
-		for (Pet pet : owner.getPets()) {
-			pet.setVisitsInternal(visits.findByPetId(pet.getId()));
+	// the revision and the owner it is cached under must be read from the same database
+	@Transactional(readOnly = true)
+	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId, WebRequest request) {
+		Revision revision = this.owners.findRevisionById(ownerId);
+		if (revision != null && revision.checkNotModified(request)) {
+			return null;
 		}
+		ModelAndView mav = new ModelAndView("owners/ownerDetails");
+		Owner owner = revision != null ? this.graphs.findById(ownerId, revision) : this.graphs.findById(ownerId);
 		mav.addObject(owner);
 		return mav;
 	}
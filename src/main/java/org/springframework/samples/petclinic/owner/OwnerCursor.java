@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+/**
+ * Opaque continuation token for keyset pagination of the owner search. The token encodes
+ * the sort key of the last owner on a page (last name and id), so the next page can be
+ * fetched with an index seek instead of an <code>OFFSET</code> scan.
+ */
+final class OwnerCursor {
+
+	/**
+	 * The order in which owners are scrolled. The id makes the key unique.
+	 */
+	static final Sort SORT = Sort.by("lastName", "id");
+
+	private static final char SEPARATOR = ':';
+
+	private OwnerCursor() {
+	}
+
+	/**
+	 * Encode the position of an owner as a continuation token.
+	 * @param position a keyset position, as returned from a
+	 * {@link org.springframework.data.domain.Window}
+	 * @return an URL safe token
+	 */
+	static String encode(ScrollPosition position) {
+		Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+		String value = keys.get("id") + String.valueOf(SEPARATOR) + keys.get("lastName");
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Encode the position after an owner as a continuation token. Windows of
+	 * {@link OwnerListItem}s cannot resolve their own positions, as they are not
+	 * entities.
+	 * @param owner the last owner on a page
+	 * @return an URL safe token
+	 */
+	static String encode(OwnerListItem owner) {
+		return encode(ScrollPosition.forward(Map.of("lastName", owner.getLastName(), "id", owner.getId())));
+	}
+
+	/**
+	 * Decode a continuation token. Empty or malformed tokens start from the beginning.
+	 * @param token a token created by {@link #encode(ScrollPosition)}
+	 * @return the position to continue from
+	 */
+	static KeysetScrollPosition decode(String token) {
+		if (!StringUtils.hasLength(token)) {
+			return ScrollPosition.keyset();
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = value.indexOf(SEPARATOR);
+			Integer id = Integer.valueOf(value.substring(0, separator));
+			return ScrollPosition.forward(Map.of("lastName", value.substring(separator + 1), "id", id));
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+			return ScrollPosition.keyset();
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * One row of the export of all owners: an owner with one of its pets and one of the
+ * visits of that pet. The pet and visit columns are <code>null</code> for owners without
+ * pets and pets without visits.
+ */
+public record OwnerExportRow(int ownerId, String firstName, String lastName, String address, String city,
+		String telephone, Integer petId, String petName, LocalDate birthDate, String type, Integer visitId,
+		LocalDate visitDate, String description) {
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.samples.petclinic.system.Revision;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads an {@link Owner} together with all of its pets and their most recent visits. The
+ * owner and pets come back in one query and the visits of all pets in a second one,
+ * however many pets the owner has. Older visits are left to the visit history of each
+ * pet.
+ * <p>
+ * The owner pages are read from the <code>owners</code> cache, keyed by the
+ * {@link Revision} of the owner. A change to the owner, its pets or their visits gives it
+ * a new revision, so a cached owner is never out of date and saving needs no eviction.
+ */
+@Component
+class OwnerGraphLoader {
+
+	/**
+	 * Number of visits shown for each pet on the pages of its owner.
+	 */
+	static final int RECENT_VISITS = 5;
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	OwnerGraphLoader(OwnerRepository owners, VisitRepository visits) {
+		this.owners = owners;
+		this.visits = visits;
+	}
+
+	/**
+	 * Retrieve an {@link Owner} with its pets and their {@link #RECENT_VISITS} most
+	 * recent visits.
+	 * @param ownerId the id of the owner
+	 * @return the owner, or null if not found
+	 */
+	Owner findById(int ownerId) {
+		Owner owner = this.owners.findById(ownerId);
+		if (owner == null) {
+			return null;
+		}
+		List<Integer> petIds = owner.getPetsInternal().stream().map(Pet::getId).toList();
+		Map<Integer, List<Visit>> visitsByPet = this.visits.findRecentGroupedByPetId(petIds, RECENT_VISITS + 1);
+		for (Pet pet : owner.getPetsInternal()) {
+			pet.setRecentVisits(visitsByPet.getOrDefault(pet.getId(), Collections.emptyList()), RECENT_VISITS);
+		}
+		return owner;
+	}
+
+	/**
+	 * Retrieve an {@link Owner} like {@link #findById(int)}, from the cache if it was
+	 * loaded at the same revision. Concurrent requests for an owner that is not cached
+	 * share one load. The owner is shared by everyone reading it, and must not be
+	 * modified.
+	 * <p>
+	 * Must be called in the read-only transaction that read the revision, so that with
+	 * read replicas both come from the same one.
+	 * @param ownerId the id of the owner
+	 * @param revision the current revision of the owner
+	 * @return the owner, or null if not found
+	 */
+	@Cacheable(cacheNames = "owners", key = "#ownerId + ':' + #revision.etag", sync = true)
+	public Owner findById(int ownerId, Revision revision) {
+		return findById(ownerId);
+	}
+
+}
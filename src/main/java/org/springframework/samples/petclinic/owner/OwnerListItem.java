@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.util.StringUtils;
+
+/**
+ * Read-only view of an {@link Owner} for the owner search results: the owner columns, the
+ * names and number of the owner's pets and the date of their latest visit, read from the
+ * {@link OwnerSummary} without the {@link Owner}/{@link Pet} entity graph.
+ */
+public class OwnerListItem {
+
+	/**
+	 * Separates the pet names in {@link OwnerSummary#getPetNames()}.
+	 */
+	public static final String PET_NAME_SEPARATOR = ", ";
+
+	private final Integer id;
+
+	private final String firstName;
+
+	private final String lastName;
+
+	private final String address;
+
+	private final String city;
+
+	private final String telephone;
+
+	private final List<String> petNames;
+
+	private final int petCount;
+
+	private final LocalDate lastVisit;
+
+	public OwnerListItem(Integer id, String firstName, String lastName, String address, String city, String telephone) {
+		this(id, firstName, lastName, address, city, telephone, null, 0, null);
+	}
+
+	@PersistenceCreator
+	public OwnerListItem(Integer id, String firstName, String lastName, String address, String city, String telephone,
+			String petNames, int petCount, LocalDate lastVisit) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.address = address;
+		this.city = city;
+		this.telephone = telephone;
+		this.petNames = StringUtils.hasLength(petNames) ? List.of(petNames.split(PET_NAME_SEPARATOR))
+				: Collections.emptyList();
+		this.petCount = petCount;
+		this.lastVisit = lastVisit;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	public List<String> getPetNames() {
+		return this.petNames;
+	}
+
+	public int getPetCount() {
+		return this.petCount;
+	}
+
+	public LocalDate getLastVisit() {
+		return this.lastVisit;
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.samples.petclinic.system.RemoteChangeEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the {@link OwnerNameIndex} behind the owner typeahead. The index is read from the
+ * {@link OwnerRepository} in batches when the application starts and kept up to date by
+ * the {@link OwnerController}, which reports every owner it saves, and by the owners
+ * other nodes of the cluster report as changed.
+ */
+@Component
+public class OwnerNameDirectory implements SmartInitializingSingleton {
+
+	static final int BATCH_SIZE = 10_000;
+
+	private final OwnerRepository owners;
+
+	private volatile OwnerNameIndex index = OwnerNameIndex.of(List.of());
+
+	public OwnerNameDirectory(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		load();
+	}
+
+	/**
+	 * Rebuild the index from the data store, for example after owners have been changed
+	 * other than through the {@link OwnerController}.
+	 */
+	public void load() {
+		List<OwnerSuggestion> all = new ArrayList<>();
+		List<OwnerSuggestion> batch;
+		int after = 0;
+		do {
+			batch = this.owners.findSuggestionsAfter(after, Limit.of(BATCH_SIZE));
+			all.addAll(batch);
+			if (!batch.isEmpty()) {
+				after = batch.get(batch.size() - 1).id();
+			}
+		}
+		while (batch.size() == BATCH_SIZE);
+		this.index = OwnerNameIndex.of(all);
+	}
+
+	/**
+	 * @param prefix the start of the last name
+	 * @param limit the maximum number of owners to return
+	 * @return the first owners whose last name starts with the prefix
+	 */
+	public List<OwnerSuggestion> suggest(String prefix, int limit) {
+		return this.index.suggest(prefix, limit);
+	}
+
+	/**
+	 * Add a saved owner to the index, or update its entry, once the current transaction
+	 * has committed, so that the typeahead never shows a change that was rolled back.
+	 * Outside of a transaction the index is updated right away.
+	 * @param owner the owner, which must have an id
+	 */
+	public void update(Owner owner) {
+		update(List.of(owner));
+	}
+
+	/**
+	 * Add saved owners to the index, or update their entries, like {@link #update(Owner)}
+	 * but in one update of the index, for owners saved in bulk.
+	 * @param owners the owners, which must have an id
+	 */
+	public void update(Collection<Owner> owners) {
+		List<OwnerSuggestion> suggestions = owners.stream()
+			.filter((owner) -> owner.getId() != null)
+			.map((owner) -> new OwnerSuggestion(owner.getId(), owner.getFirstName(), owner.getLastName()))
+			.toList();
+		if (suggestions.isEmpty()) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					OwnerNameDirectory.this.index.putAll(suggestions);
+				}
+			});
+		}
+		else {
+			this.index.putAll(suggestions);
+		}
+	}
+
+	/**
+	 * Read an owner changed by another node of the cluster again.
+	 * @param change the change made by the other node
+	 */
+	@EventListener(condition = "#change.entity() == 'Owner'")
+	public void onRemoteChange(RemoteChangeEvent change) {
+		int id = change.id();
+		this.owners.findSuggestionsAfter(id - 1, Limit.of(1))
+			.stream()
+			.filter(owner -> owner.id() == id)
+			.forEach(this.index::put);
+	}
+
+}
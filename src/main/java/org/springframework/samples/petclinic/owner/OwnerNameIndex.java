@@ -0,0 +1,296 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of owners by last name that answers prefix lookups without touching the
+ * data store.
+ * <p>
+ * The bulk of the owners live in sorted arrays. Each distinct last name and first name is
+ * stored once in a dictionary and the owners are rows of an id and a first name code,
+ * grouped by last name, so a lookup is a binary search over the distinct last names
+ * followed by a scan of the first matching rows. Owners added or changed later go to a
+ * small sorted buffer that is merged into the lookups and folded into the arrays once it
+ * grows past {@link #COMPACTION_THRESHOLD} entries. Lookups read an immutable state and
+ * never block, updates replace it.
+ */
+public final class OwnerNameIndex {
+
+	/**
+	 * Case-insensitive order of names, consistent with the case-insensitive search.
+	 */
+	static final Comparator<String> NAME_ORDER = Comparator
+		.nullsFirst(String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()));
+
+	/**
+	 * Order of the suggestions: by last name, first name and id.
+	 */
+	static final Comparator<OwnerSuggestion> ORDER = Comparator.comparing(OwnerSuggestion::lastName, NAME_ORDER)
+		.thenComparing(OwnerSuggestion::firstName, NAME_ORDER)
+		.thenComparingInt(OwnerSuggestion::id);
+
+	static final int COMPACTION_THRESHOLD = 1024;
+
+	private volatile State state;
+
+	private OwnerNameIndex(State state) {
+		this.state = state;
+	}
+
+	/**
+	 * @param owners the owners to index, with distinct ids
+	 * @return an index of the owners
+	 */
+	public static OwnerNameIndex of(Collection<OwnerSuggestion> owners) {
+		List<OwnerSuggestion> sorted = new ArrayList<>(owners);
+		sorted.sort(ORDER);
+		return new OwnerNameIndex(new State(Rows.of(sorted), List.of(), Set.of()));
+	}
+
+	/**
+	 * Find the first owners, in order of last name and first name, whose last name starts
+	 * with the given prefix, ignoring case.
+	 * @param prefix the start of the last name, must not be empty
+	 * @param limit the maximum number of owners to return
+	 * @return the matching owners
+	 */
+	public List<OwnerSuggestion> suggest(String prefix, int limit) {
+		State state = this.state;
+		Rows rows = state.rows;
+		List<OwnerSuggestion> found = new ArrayList<>(Math.min(limit, 64));
+		int name = rows.lowerBound(prefix);
+		int row = (name < rows.lastNames.length) ? rows.offsets[name] : rows.ids.length;
+		int added = lowerBound(state.added, prefix);
+		OwnerSuggestion next = null;
+		while (found.size() < limit) {
+			while (next == null && name < rows.lastNames.length && startsWith(rows.lastNames[name], prefix)) {
+				if (row == rows.offsets[name + 1]) {
+					name++;
+				}
+				else if (state.changed.isEmpty() || !state.changed.contains(rows.ids[row])) {
+					next = rows.get(name, row++);
+				}
+				else {
+					row++;
+				}
+			}
+			OwnerSuggestion nextAdded = (added < state.added.size()
+					&& startsWith(state.added.get(added).lastName(), prefix)) ? state.added.get(added) : null;
+			if (next == null && nextAdded == null) {
+				break;
+			}
+			if (nextAdded == null || (next != null && ORDER.compare(next, nextAdded) < 0)) {
+				found.add(next);
+				next = null;
+			}
+			else {
+				found.add(nextAdded);
+				added++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Add an owner to the index, or replace its entry if it is already there.
+	 * @param owner the owner
+	 */
+	public void put(OwnerSuggestion owner) {
+		putAll(List.of(owner));
+	}
+
+	/**
+	 * Add owners to the index, or replace their entries if they are already there, in one
+	 * update however many there are.
+	 * @param owners the owners, each with a different id
+	 */
+	public synchronized void putAll(Collection<OwnerSuggestion> owners) {
+		State current = this.state;
+		Set<Integer> ids = new HashSet<>();
+		owners.forEach((owner) -> ids.add(owner.id()));
+		List<OwnerSuggestion> added = new ArrayList<>(current.added.size() + owners.size());
+		for (OwnerSuggestion entry : current.added) {
+			if (!ids.contains(entry.id())) {
+				added.add(entry);
+			}
+		}
+		added.addAll(owners);
+		added.sort(ORDER);
+		Set<Integer> changed = new HashSet<>(current.changed);
+		changed.addAll(ids);
+		if (added.size() > COMPACTION_THRESHOLD) {
+			this.state = new State(Rows.of(current.merge(added, changed)), List.of(), Set.of());
+		}
+		else {
+			this.state = new State(current.rows, Collections.unmodifiableList(added), Set.copyOf(changed));
+		}
+	}
+
+	/**
+	 * @return the number of owners in the index
+	 */
+	public int size() {
+		State state = this.state;
+		int superseded = 0;
+		for (int id : state.rows.ids) {
+			if (state.changed.contains(id)) {
+				superseded++;
+			}
+		}
+		return state.rows.ids.length - superseded + state.added.size();
+	}
+
+	private static int lowerBound(List<OwnerSuggestion> owners, String prefix) {
+		int low = 0;
+		int high = owners.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (compare(owners.get(middle).lastName(), prefix) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int compare(String name, String prefix) {
+		return (name != null) ? String.CASE_INSENSITIVE_ORDER.compare(name, prefix) : -1;
+	}
+
+	private static boolean startsWith(String name, String prefix) {
+		return name != null && name.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+	/**
+	 * What the lookups read: the compacted rows, the owners added since, in order, and
+	 * the ids of the owners whose row has been superseded by an added entry.
+	 */
+	private record State(Rows rows, List<OwnerSuggestion> added, Set<Integer> changed) {
+
+		List<OwnerSuggestion> merge(List<OwnerSuggestion> added, Set<Integer> changed) {
+			List<OwnerSuggestion> merged = new ArrayList<>(this.rows.ids.length + added.size());
+			int next = 0;
+			for (int name = 0; name < this.rows.lastNames.length; name++) {
+				for (int row = this.rows.offsets[name]; row < this.rows.offsets[name + 1]; row++) {
+					if (changed.contains(this.rows.ids[row])) {
+						continue;
+					}
+					OwnerSuggestion owner = this.rows.get(name, row);
+					while (next < added.size() && ORDER.compare(added.get(next), owner) < 0) {
+						merged.add(added.get(next++));
+					}
+					merged.add(owner);
+				}
+			}
+			merged.addAll(added.subList(next, added.size()));
+			return merged;
+		}
+
+	}
+
+	/**
+	 * Dictionary encoded owners, sorted by last name, first name and id.
+	 */
+	private static final class Rows {
+
+		/**
+		 * The distinct last names, in order.
+		 */
+		final String[] lastNames;
+
+		/**
+		 * Where the rows of each last name start, followed by the number of rows.
+		 */
+		final int[] offsets;
+
+		final int[] ids;
+
+		/**
+		 * Index of the first name of each row in {@link #firstNameDictionary}.
+		 */
+		final int[] firstNames;
+
+		final String[] firstNameDictionary;
+
+		private Rows(String[] lastNames, int[] offsets, int[] ids, int[] firstNames, String[] firstNameDictionary) {
+			this.lastNames = lastNames;
+			this.offsets = offsets;
+			this.ids = ids;
+			this.firstNames = firstNames;
+			this.firstNameDictionary = firstNameDictionary;
+		}
+
+		static Rows of(List<OwnerSuggestion> sorted) {
+			List<String> lastNames = new ArrayList<>();
+			List<Integer> offsets = new ArrayList<>();
+			Map<String, Integer> firstNameCodes = new HashMap<>();
+			List<String> firstNameDictionary = new ArrayList<>();
+			int[] ids = new int[sorted.size()];
+			int[] firstNames = new int[sorted.size()];
+			String lastName = null;
+			for (int row = 0; row < ids.length; row++) {
+				OwnerSuggestion owner = sorted.get(row);
+				if (row == 0 || NAME_ORDER.compare(lastName, owner.lastName()) != 0) {
+					lastName = owner.lastName();
+					lastNames.add(lastName);
+					offsets.add(row);
+				}
+				ids[row] = owner.id();
+				firstNames[row] = firstNameCodes.computeIfAbsent(owner.firstName(), (firstName) -> {
+					firstNameDictionary.add(firstName);
+					return firstNameDictionary.size() - 1;
+				});
+			}
+			offsets.add(ids.length);
+			return new Rows(lastNames.toArray(new String[0]), offsets.stream().mapToInt(Integer::intValue).toArray(),
+					ids, firstNames, firstNameDictionary.toArray(new String[0]));
+		}
+
+		int lowerBound(String prefix) {
+			int low = 0;
+			int high = this.lastNames.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (compare(this.lastNames[middle], prefix) < 0) {
+					low = middle + 1;
+				}
+				else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		OwnerSuggestion get(int name, int row) {
+			return new OwnerSuggestion(this.ids[row], this.firstNameDictionary[this.firstNames[row]],
+					this.lastNames[name]);
+		}
+
+	}
+
+}
@@ -15,13 +15,24 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.samples.petclinic.system.Revision;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.Tuple;
+
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant
  * with Spring Data naming conventions so this interface can easily be extended for Spring
@@ -47,6 +58,29 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	@Transactional(readOnly = true)
 	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
 
+	/**
+	 * Retrieve the names of the {@link Owner}s with an id greater than the given one, in
+	 * order of id, to read all owners in batches.
+	 * @param after the id of the last owner of the previous batch, or 0
+	 * @param limit the maximum number of owners to return
+	 * @return the names and ids of the owners
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSuggestion(owner.id, owner.firstName, owner.lastName) FROM Owner owner WHERE owner.id > :after ORDER BY owner.id")
+	@Transactional(readOnly = true)
+	List<OwnerSuggestion> findSuggestionsAfter(@Param("after") int after, Limit limit);
+
+	/**
+	 * Stream all {@link Owner}s with their pets and visits, ordered so that the rows of
+	 * an owner and of each of its pets are adjacent. The rows are read from a
+	 * forward-only cursor as the stream is consumed, so the stream must be used, and
+	 * closed, within a transaction.
+	 * @return one row per visit, pet without visits and owner without pets
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerExportRow(owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone, pet.id, pet.name, pet.birthDate, type.name, visit.id, visit.date, visit.description) FROM Owner owner left join owner.pets pet left join pet.type type left join Visit visit ON visit.petId = pet.id ORDER BY owner.id, pet.id, visit.id")
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	Stream<OwnerExportRow> streamExportRows();
+
 	/**
 	 * Retrieve an {@link Owner} from the data store by id.
 	 * @param id the id to search for
@@ -56,6 +90,34 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	@Transactional(readOnly = true)
 	Owner findById(@Param("id") Integer id);
 
+	/**
+	 * Retrieve the versions and update times of an {@link Owner}, its pets and their
+	 * visits with a single aggregate query, without loading any of them.
+	 * @param id the id of the owner
+	 * @return a tuple of the owner's <code>version</code> and <code>updatedAt</code>,
+	 * then count, highest id, sum of versions and latest update of the pets and of the
+	 * visits, or <code>null</code> if there is no such owner
+	 */
+	@Query("SELECT owner.version AS version, owner.updatedAt AS updatedAt, COUNT(DISTINCT pet.id) AS pets, MAX(pet.id) AS lastPet, SUM(pet.version) AS petVersions, MAX(pet.updatedAt) AS petsUpdatedAt, COUNT(visit.id) AS visits, MAX(visit.id) AS lastVisit, SUM(visit.version) AS visitVersions, MAX(visit.updatedAt) AS visitsUpdatedAt FROM Owner owner left join owner.pets pet left join Visit visit ON visit.petId = pet.id WHERE owner.id = :id GROUP BY owner.id, owner.version, owner.updatedAt")
+	@Transactional(readOnly = true)
+	Tuple findRevisionStateById(@Param("id") Integer id);
+
+	/**
+	 * Compute the {@link Revision} of an {@link Owner}'s details, which change with the
+	 * owner, any of its pets or any of their visits.
+	 * @param id the id of the owner
+	 * @return the revision, or <code>null</code> if there is no such owner
+	 */
+	default Revision findRevisionById(Integer id) {
+		Tuple state = findRevisionStateById(id);
+		if (state == null) {
+			return null;
+		}
+		return Revision.of(Revision.latest(state.get("updatedAt", Instant.class),
+				state.get("petsUpdatedAt", Instant.class), state.get("visitsUpdatedAt", Instant.class)),
+				state.toArray());
+	}
+
 	/**
 	 * Save an {@link Owner} to the data store, either inserting or updating it.
 	 * @param owner the {@link Owner} to save
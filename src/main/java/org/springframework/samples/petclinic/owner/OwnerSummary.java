@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Read model of an {@link Owner} for the owner search: the owner columns with the names
+ * and number of its pets and the date of their latest visit, in a single narrow table so
+ * that a page of results needs no join. A summary is rewritten by
+ * {@link OwnerSummaryRepository#refresh(int)} in the transaction that saves the owner,
+ * one of its pets or one of their visits.
+ */
+@Entity
+@Table(name = "owner_summary")
+public class OwnerSummary {
+
+	@Id
+	@Column(name = "owner_id")
+	private Integer id;
+
+	@Column(name = "first_name")
+	private String firstName;
+
+	@Column(name = "last_name")
+	private String lastName;
+
+	@Column(name = "address")
+	private String address;
+
+	@Column(name = "city")
+	private String city;
+
+	@Column(name = "telephone")
+	private String telephone;
+
+	/**
+	 * The names of the pets in alphabetical order, separated by
+	 * {@link OwnerListItem#PET_NAME_SEPARATOR}.
+	 */
+	@Column(name = "pet_names")
+	private String petNames;
+
+	@Column(name = "pet_count")
+	private int petCount;
+
+	@Column(name = "last_visit")
+	private LocalDate lastVisit;
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	public String getPetNames() {
+		return this.petNames;
+	}
+
+	public int getPetCount() {
+		return this.petCount;
+	}
+
+	public LocalDate getLastVisit() {
+		return this.lastVisit;
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the {@link OwnerSummary} of every owner that has none when the application starts,
+ * for the sample data and for owners saved before the summaries were maintained.
+ */
+@Component
+class OwnerSummaryBackfill implements SmartInitializingSingleton {
+
+	private static final Log logger = LogFactory.getLog(OwnerSummaryBackfill.class);
+
+	private final OwnerSummaryRepository summaries;
+
+	OwnerSummaryBackfill(OwnerSummaryRepository summaries) {
+		this.summaries = summaries;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		int added = this.summaries.insertMissing();
+		if (added > 0) {
+			logger.info("Added " + added + " owner summaries");
+		}
+	}
+
+}
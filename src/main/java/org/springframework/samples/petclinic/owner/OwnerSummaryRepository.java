@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Repository class for the {@link OwnerSummary} read model behind the owner search. The
+ * searches read only the <code>owner_summary</code> table; {@link #refresh(int)} rewrites
+ * the summary of an owner from the <code>owners</code>, <code>pets</code> and
+ * <code>visits</code> tables and must be called in the transaction that saves the owner,
+ * one of its pets or one of their visits.
+ */
+public interface OwnerSummaryRepository extends Repository<OwnerSummary, Integer> {
+
+	/**
+	 * Selects the summary of every owner; the statements add the owners to summarize.
+	 */
+	String SUMMARY = "SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone, "
+			+ "(SELECT listagg(pet.name, '" + OwnerListItem.PET_NAME_SEPARATOR
+			+ "') WITHIN GROUP (ORDER BY pet.name) FROM Pet pet WHERE pet.owner = owner), "
+			+ "(SELECT count(pet) FROM Pet pet WHERE pet.owner = owner), "
+			+ "(SELECT max(visit.date) FROM Visit visit WHERE visit.petId IN (SELECT pet.id FROM Pet pet WHERE pet.owner = owner)) "
+			+ "FROM Owner owner ";
+
+	/**
+	 * Retrieve a page of {@link OwnerListItem}s for the owners whose last name
+	 * <i>starts</i> with the given name.
+	 * @param lastName Value to search for
+	 * @param pageable the page to return
+	 * @return a page of matching owners
+	 */
+	@Query(value = "SELECT new org.springframework.samples.petclinic.owner.OwnerListItem(summary.id, summary.firstName, summary.lastName, summary.address, summary.city, summary.telephone, summary.petNames, summary.petCount, summary.lastVisit) FROM OwnerSummary summary WHERE summary.lastName LIKE :lastName% ",
+			countQuery = "SELECT count(summary) FROM OwnerSummary summary WHERE summary.lastName LIKE :lastName% ")
+	@Transactional(readOnly = true)
+	Page<OwnerListItem> findListItemsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve a window of {@link OwnerListItem}s for the owners whose last name
+	 * <i>starts</i> with the given name. Unlike
+	 * {@link #findListItemsByLastName(String, Pageable)} this does not count the matching
+	 * owners, and with a keyset position every window costs the same however far into the
+	 * results it is.
+	 * @param lastName Value to search for
+	 * @param position where to continue from
+	 * @param sort the order of the results, which must make the keyset unique
+	 * @param limit the maximum number of owners in the window
+	 * @return a window of matching owners
+	 */
+	@Transactional(readOnly = true)
+	Window<OwnerListItem> findByLastNameStartingWith(String lastName, ScrollPosition position, Sort sort, Limit limit);
+
+	/**
+	 * Retrieve the ids of the owners whose last name <i>starts</i> with the given name,
+	 * for a bounded count of the search results.
+	 * @param lastName Value to search for
+	 * @param limit the maximum number of ids to return
+	 * @return the ids of matching owners
+	 */
+	@Query("SELECT summary.id FROM OwnerSummary summary WHERE summary.lastName LIKE :lastName% ")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastName(@Param("lastName") String lastName, Limit limit);
+
+	/**
+	 * Retrieve the summary of an owner.
+	 * @param id the id of the owner
+	 * @return the summary, or <code>null</code> if the owner has none
+	 */
+	@Transactional(readOnly = true)
+	OwnerSummary findById(Integer id);
+
+	/**
+	 * Lock the row of an owner until the end of the transaction, so that transactions
+	 * rewriting the summary of the same owner do so one after the other.
+	 * @param ownerId the id of the owner
+	 * @return the id of the owner, or <code>null</code> if there is no such owner
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.id = :ownerId")
+	@Transactional(propagation = Propagation.MANDATORY)
+	Integer lockOwner(@Param("ownerId") int ownerId);
+
+	/**
+	 * Delete the summary of an owner.
+	 * @param ownerId the id of the owner
+	 */
+	@Modifying
+	@Query("DELETE FROM OwnerSummary summary WHERE summary.id = :ownerId")
+	@Transactional(propagation = Propagation.MANDATORY)
+	void deleteByOwnerId(@Param("ownerId") int ownerId);
+
+	/**
+	 * Compute the summary of an owner from its pets and their visits with a single
+	 * statement, after flushing the changes of the transaction so that it sees them.
+	 * @param ownerId the id of the owner, which must not have a summary yet
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("INSERT INTO OwnerSummary (id, firstName, lastName, address, city, telephone, petNames, petCount, lastVisit) "
+			+ SUMMARY + "WHERE owner.id = :ownerId")
+	@Transactional(propagation = Propagation.MANDATORY)
+	void insertByOwnerId(@Param("ownerId") int ownerId);
+
+	/**
+	 * Compute the summaries of all owners that have none, for example the sample data or
+	 * owners saved before the read model was introduced.
+	 * @return the number of summaries added
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("INSERT INTO OwnerSummary (id, firstName, lastName, address, city, telephone, petNames, petCount, lastVisit) "
+			+ SUMMARY + "WHERE owner.id NOT IN (SELECT summary.id FROM OwnerSummary summary)")
+	@Transactional
+	int insertMissing();
+
+	/**
+	 * Rewrite the summary of an owner after the owner, one of its pets or one of their
+	 * visits was saved, in the transaction that saved it. The owner is locked first:
+	 * otherwise a transaction deleting the summary while another one rewrites it would
+	 * not see the row the other one inserts, and would fail to insert its own.
+	 * @param ownerId the id of the owner
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	default void refresh(int ownerId) {
+		lockOwner(ownerId);
+		deleteByOwnerId(ownerId);
+		insertByOwnerId(ownerId);
+	}
+
+}
@@ -16,14 +16,16 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
@@ -31,8 +33,6 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
 import org.springframework.samples.petclinic.visit.Visit;
@@ -48,12 +48,18 @@ import org.springframework.samples.petclinic.visit.Visit;
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
+	private static final Comparator<Visit> MOST_RECENT_FIRST = Comparator.comparing(Visit::getDate,
+			Comparator.nullsLast(Comparator.reverseOrder()));
+
 	@Column(name = "birth_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate birthDate = LocalDate.now();
 
+	// the type is read from the second-level cache by id rather than joined in every
+	// query that loads pets
 	@ManyToOne
 	@JoinColumn(name = "type_id")
+	@Fetch(FetchMode.SELECT)
 	private PetType type;
 
 	@ManyToOne
@@ -63,6 +69,12 @@ public class Pet extends NamedEntity {
 	@Transient
 	private Set<Visit> visits = new LinkedHashSet<>();
 
+	@Transient
+	private List<Visit> sortedVisits;
+
+	@Transient
+	private boolean olderVisits;
+
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
 	}
@@ -96,16 +108,43 @@ public class Pet extends NamedEntity {
 
 	protected void setVisitsInternal(Collection<Visit> visits) {
 		this.visits = new LinkedHashSet<>(visits);
+		this.sortedVisits = null;
 	}
 
+	/**
+	 * @return the visits, most recent first, sorted once and then kept until a visit is
+	 * added
+	 */
 	public List<Visit> getVisits() {
-		List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-		PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-		return Collections.unmodifiableList(sortedVisits);
+		List<Visit> sortedVisits = this.sortedVisits;
+		if (sortedVisits == null) {
+			sortedVisits = getVisitsInternal().stream().sorted(MOST_RECENT_FIRST).toList();
+			this.sortedVisits = sortedVisits;
+		}
+		return sortedVisits;
+	}
+
+	/**
+	 * @return whether the pet has visits older than those in {@link #getVisits()}, which
+	 * are then only the most recent ones
+	 */
+	public boolean hasOlderVisits() {
+		return this.olderVisits;
+	}
+
+	/**
+	 * @param visits the most recent visits of the pet, most recent first, with one more
+	 * than the limit if there are older ones
+	 * @param limit the number of visits to keep
+	 */
+	protected void setRecentVisits(List<Visit> visits, int limit) {
+		setVisitsInternal(visits.subList(0, Math.min(visits.size(), limit)));
+		this.olderVisits = visits.size() > limit;
 	}
 
 	public void addVisit(Visit visit) {
 		getVisitsInternal().add(visit);
+		this.sortedVisits = null;
 		visit.setPetId(this.getId());
 	}
 
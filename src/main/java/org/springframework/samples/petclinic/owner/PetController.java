@@ -22,6 +22,7 @@ import org.springframework.samples.petclinic.system.Form;
 import org.springframework.samples.petclinic.system.InputField;
 import org.springframework.samples.petclinic.system.SelectField;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
@@ -49,13 +50,20 @@ class PetController {
 
 	private final OwnerRepository owners;
 
-	public PetController(PetRepository pets, OwnerRepository owners) {
+	private final PetTypeRegistry types;
+
+	private final OwnerSummaryRepository summaries;
+
+	public PetController(PetRepository pets, OwnerRepository owners, PetTypeRegistry types,
+			OwnerSummaryRepository summaries) {
 		this.pets = pets;
 		this.owners = owners;
+		this.types = types;
+		this.summaries = summaries;
 	}
 
 	private Collection<PetType> populatePetTypes() {
-		return this.pets.findPetTypes();
+		return this.types.getPetTypes().getAll();
 	}
 
 	@ModelAttribute("pet")
@@ -87,7 +95,9 @@ class PetController {
 	}
 
 	@PostMapping("/pets/new")
-	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model) {
+	@Transactional
+	public String processCreationForm(@PathVariable("ownerId") int ownerId, Owner owner, @Valid Pet pet,
+			BindingResult result, ModelMap model) {
 		if (StringUtils.hasLength(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null) {
 			result.rejectValue("name", "duplicate", "already exists");
 		}
@@ -98,6 +108,7 @@ class PetController {
 		}
 		else {
 			this.pets.save(pet);
+			this.summaries.refresh(ownerId);
 			return "redirect:/owners/{ownerId}";
 		}
 	}
@@ -108,7 +119,9 @@ class PetController {
 	}
 
 	@PostMapping("/pets/{petId}/edit")
-	public String processUpdateForm(@Valid Pet pet, BindingResult result, Owner owner, ModelMap model) {
+	@Transactional
+	public String processUpdateForm(@PathVariable("ownerId") int ownerId, @Valid Pet pet, BindingResult result,
+			Owner owner, ModelMap model) {
 		if (result.hasErrors()) {
 			pet.setOwner(owner);
 			model.put("pet", pet);
@@ -117,6 +130,7 @@ class PetController {
 		else {
 			owner.addPet(pet);
 			this.pets.save(pet);
+			this.summaries.refresh(ownerId);
 			return "redirect:/owners/{ownerId}";
 		}
 	}
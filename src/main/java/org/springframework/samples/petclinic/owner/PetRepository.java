@@ -15,10 +15,14 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.List;
 
 /**
@@ -35,10 +39,13 @@ import java.util.List;
 public interface PetRepository extends Repository<Pet, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Retrieve all {@link PetType}s from the data store. The ids of the result are kept
+	 * in Hibernate's query cache until a pet type is added, and the types themselves in
+	 * their entity cache.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	List<PetType> findPetTypes();
 
@@ -15,6 +15,8 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
 import jakarta.persistence.Entity;
@@ -22,9 +24,13 @@ import jakarta.persistence.Table;
 
 /**
  * @author Juergen Hoeller Can be Cat, Dog, Hamster...
+ * <p>
+ * Pet types are never changed once created, so Hibernate keeps them in a read-only
+ * second-level cache region and loading a pet does not need to read its type again.
  */
 @Entity
 @Table(name = "types")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "petTypeEntities")
 public class PetType extends NamedEntity {
 
 }
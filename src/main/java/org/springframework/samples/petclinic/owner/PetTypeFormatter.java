@@ -16,7 +16,6 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.Locale;
 
 import org.springframework.format.Formatter;
@@ -35,10 +34,10 @@ import org.springframework.stereotype.Component;
 @Component
 public class PetTypeFormatter implements Formatter<PetType> {
 
-	private final PetRepository pets;
+	private final PetTypeRegistry types;
 
-	public PetTypeFormatter(PetRepository pets) {
-		this.pets = pets;
+	public PetTypeFormatter(PetTypeRegistry types) {
+		this.types = types;
 	}
 
 	@Override
@@ -48,13 +47,11 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	@Override
 	public PetType parse(String text, Locale locale) throws ParseException {
-		Collection<PetType> findPetTypes = this.pets.findPetTypes();
-		for (PetType type : findPetTypes) {
-			if (type.getName().equals(text)) {
-				return type;
-			}
+		PetType type = this.types.getPetTypes().findByName(text);
+		if (type == null) {
+			throw new ParseException("type not found: " + text, 0);
 		}
-		throw new ParseException("type not found: " + text, 0);
+		return type;
 	}
 
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of the {@link PetTypes}, shared by the pet form and the
+ * {@link PetTypeFormatter}. The pet types are loaded once and kept in the
+ * <code>petTypes</code> cache until it expires or {@link #refresh()} is called.
+ */
+@Component
+public class PetTypeRegistry {
+
+	private final PetRepository pets;
+
+	public PetTypeRegistry(PetRepository pets) {
+		this.pets = pets;
+	}
+
+	@Cacheable(cacheNames = "petTypes", key = "'all'", sync = true)
+	public PetTypes getPetTypes() {
+		return new PetTypes(this.pets.findPetTypes());
+	}
+
+	/**
+	 * Load the pet types once the application has started, which also fills their region
+	 * of Hibernate's second-level cache. Loading pets then reads their types from that
+	 * region instead of selecting each type on its first use.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void preload() {
+		this.pets.findPetTypes();
+	}
+
+	/**
+	 * Drop the cached pet types, so that the next lookup reads them again. Call this
+	 * after changing pet types.
+	 */
+	@CacheEvict(cacheNames = "petTypes", allEntries = true)
+	public void refresh() {
+	}
+
+}
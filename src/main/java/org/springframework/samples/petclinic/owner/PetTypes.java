@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of all the {@link PetType}s, in the order they are listed in forms and
+ * indexed by name for parsing form values.
+ */
+public final class PetTypes {
+
+	private final List<PetType> all;
+
+	private final Map<String, PetType> byName;
+
+	public PetTypes(Collection<PetType> types) {
+		this.all = List.copyOf(types);
+		Map<String, PetType> byName = new HashMap<>();
+		for (PetType type : this.all) {
+			byName.putIfAbsent(type.getName(), type);
+		}
+		this.byName = Map.copyOf(byName);
+	}
+
+	/**
+	 * @return all the pet types, ordered by name
+	 */
+	public List<PetType> getAll() {
+		return this.all;
+	}
+
+	/**
+	 * @param name the name of a pet type
+	 * @return the pet type with exactly that name, or <code>null</code> if there is none
+	 */
+	public PetType findByName(String name) {
+		return this.byName.get(name);
+	}
+
+}
@@ -18,11 +18,13 @@ package org.springframework.samples.petclinic.owner;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -39,9 +41,12 @@ class VisitController {
 
 	private final PetRepository pets;
 
-	public VisitController(VisitRepository visits, PetRepository pets) {
+	private final OwnerSummaryRepository summaries;
+
+	public VisitController(VisitRepository visits, PetRepository pets, OwnerSummaryRepository summaries) {
 		this.visits = visits;
 		this.pets = pets;
+		this.summaries = summaries;
 	}
 
 	@InitBinder
@@ -59,7 +64,8 @@ class VisitController {
 	@ModelAttribute("visit")
 	public Visit loadPetWithVisit(@PathVariable("petId") int petId, Map<String, Object> model) {
 		Pet pet = this.pets.findById(petId);
-		pet.setVisitsInternal(this.visits.findByPetId(petId));
+		pet.setRecentVisits(this.visits.findRecentByPetIdIn(List.of(petId), OwnerGraphLoader.RECENT_VISITS + 1),
+				OwnerGraphLoader.RECENT_VISITS);
 		model.put("pet", pet);
 		Visit visit = new Visit();
 		pet.addVisit(visit);
@@ -74,12 +80,14 @@ class VisitController {
 
 	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is called
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@Valid Visit visit, BindingResult result) {
+	@Transactional
+	public String processNewVisitForm(@Valid Visit visit, BindingResult result, Map<String, Object> model) {
 		if (result.hasErrors()) {
 			return "pets/createOrUpdateVisitForm";
 		}
 		else {
 			this.visits.save(visit);
+			this.summaries.refresh(((Pet) model.get("pet")).getOwner().getId());
 			return "redirect:/owners/{ownerId}";
 		}
 	}
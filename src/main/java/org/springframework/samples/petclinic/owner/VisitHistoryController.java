@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.system.Pagination;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Shows all the visits of a pet, a page at a time. It is kept apart from the
+ * {@link VisitController}, whose model attribute loads the recent visits of the pet and a
+ * new visit for the form, neither of which this page shows.
+ */
+@Controller
+class VisitHistoryController {
+
+	private static final int HISTORY_SIZE = 10;
+
+	private final VisitRepository visits;
+
+	private final PetRepository pets;
+
+	public VisitHistoryController(VisitRepository visits, PetRepository pets) {
+		this.visits = visits;
+		this.pets = pets;
+	}
+
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public String showVisitHistory(@PathVariable("petId") int petId, @RequestParam(defaultValue = "1") int page,
+			Model model) {
+		model.addAttribute("pet", this.pets.findById(petId));
+		int current = Math.max(page, 1);
+		Page<Visit> paginated = findPaginated(petId, current);
+		if (current > paginated.getTotalPages() && paginated.getTotalPages() > 0) {
+			// past the last page, e.g. from a link made before visits were deleted
+			current = paginated.getTotalPages();
+			paginated = findPaginated(petId, current);
+		}
+		Pagination.of(current, paginated.getTotalPages()).addTo(model);
+		model.addAttribute("listVisits", paginated.getContent());
+		return "pets/visitHistory";
+	}
+
+	private Page<Visit> findPaginated(int petId, int page) {
+		return this.visits.findByPetId(petId, PageRequest.of(page - 1, HISTORY_SIZE));
+	}
+
+}
@@ -45,8 +45,6 @@ public class Application {
 
 		private String title;
 
-		private boolean active;
-
 		private String glyph;
 
 		public String getGlyph() {
@@ -81,14 +79,6 @@ public class Application {
 			this.path = path;
 		}
 
-		public boolean isActive() {
-			return active;
-		}
-
-		public void setActive(boolean active) {
-			this.active = active;
-		}
-
 	}
 
 	public Menu getMenu(String name) {
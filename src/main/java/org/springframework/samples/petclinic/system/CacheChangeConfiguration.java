@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the caches of the nodes of a cluster coherent through a change log in the shared
+ * database: every node writes the entities it changes to the log with the
+ * {@link CacheChangeLog}, and reads those changed by the others with the
+ * {@link CacheChangePoller}. Turned on with <code>app.cache-changes.enabled=true</code>
+ * on every node sharing the database.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("app.cache-changes.enabled")
+@EnableConfigurationProperties(CacheChangeProperties.class)
+class CacheChangeConfiguration {
+
+	@Bean
+	public CacheChangeLog cacheChangeLog() {
+		return new CacheChangeLog();
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer cacheChangeLogCustomizer(CacheChangeLog cacheChangeLog) {
+		return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+				(IntegratorProvider) () -> List.of(cacheChangeLog));
+	}
+
+	@Bean
+	public CacheChangePoller cacheChangePoller(DataSource dataSource, CacheChangeLog cacheChangeLog,
+			ApplicationEventPublisher events, CacheChangeProperties properties) {
+		return new CacheChangePoller(dataSource, cacheChangeLog, events, properties.getPollInterval(),
+				properties.getRetention());
+	}
+
+}
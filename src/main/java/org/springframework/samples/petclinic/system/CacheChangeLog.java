@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * Writes every entity inserted, updated or deleted through Hibernate to the
+ * <code>cache_changes</code> table, with the id of this node. The row is written in the
+ * transaction making the change, right before it commits, so other nodes only see the
+ * changes that were committed. It is written on the connection of the transaction without
+ * going through Hibernate, so it is not part of the {@link SqlAccounting} of the request.
+ * <p>
+ * Changes read back from the table by the {@link CacheChangePoller} are evicted here from
+ * the second-level cache.
+ * <p>
+ * Code inserting entities with plain JDBC, which Hibernate does not see, writes them to
+ * the log itself with {@link #record(JdbcOperations, Class, List)}.
+ */
+public class CacheChangeLog
+		implements Integrator, PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private static final String INSERT = "INSERT INTO cache_changes (node, entity, entity_id) VALUES (?, ?, ?)";
+
+	private final String node = UUID.randomUUID().toString();
+
+	private volatile SessionFactoryImplementor sessionFactory;
+
+	/**
+	 * @return the id of this node in the change log
+	 */
+	String getNode() {
+		return this.node;
+	}
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+			SessionFactoryImplementor sessionFactory) {
+		this.sessionFactory = sessionFactory;
+		EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+		listeners.appendListeners(EventType.POST_INSERT, this);
+		listeners.appendListeners(EventType.POST_UPDATE, this);
+		listeners.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+		this.sessionFactory = null;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		record(event.getSession(), event.getPersister(), event.getId());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		record(event.getSession(), event.getPersister(), event.getId());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		record(event.getSession(), event.getPersister(), event.getId());
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private void record(EventSource session, EntityPersister persister, Object id) {
+		String entity = persister.getMappedClass().getSimpleName();
+		session.getActionQueue()
+			.registerProcess((BeforeTransactionCompletionProcess) completing -> completing.doWork(connection -> {
+				try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+					insert.setString(1, this.node);
+					insert.setString(2, entity);
+					insert.setObject(3, id);
+					insert.executeUpdate();
+				}
+			}));
+	}
+
+	/**
+	 * Write entities changed without going through Hibernate to the log, in one batch on
+	 * the current transaction, so that other nodes see them once it commits.
+	 * @param jdbc the template the entities were written with
+	 * @param entity the class of the entities
+	 * @param ids the ids of the entities
+	 */
+	public void record(JdbcOperations jdbc, Class<?> entity, List<Integer> ids) {
+		jdbc.batchUpdate(INSERT, ids, ids.size(), (insert, id) -> {
+			insert.setString(1, this.node);
+			insert.setString(2, entity.getSimpleName());
+			insert.setInt(3, id);
+		});
+	}
+
+	/**
+	 * Evict an entity changed by another node from the second-level cache, together with
+	 * its cached collections.
+	 * @param entity the simple class name of the entity
+	 * @param id the id of the entity
+	 */
+	void evict(String entity, Integer id) {
+		SessionFactoryImplementor sessionFactory = this.sessionFactory;
+		if (sessionFactory == null) {
+			return;
+		}
+		sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+			if (persister.hasCache() && persister.getMappedClass().getSimpleName().equals(entity)) {
+				sessionFactory.getCache().evictEntityData(persister.getEntityName(), id);
+			}
+		});
+		sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(collection -> {
+			if (collection.hasCache()
+					&& collection.getOwnerEntityPersister().getMappedClass().getSimpleName().equals(entity)) {
+				sessionFactory.getCache().evictCollectionData(collection.getRole(), id);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reads the changes other nodes wrote to the {@link CacheChangeLog} at a fixed interval,
+ * evicts the changed entities from the second-level cache and publishes a
+ * {@link RemoteChangeEvent} for each of them. Each poll only asks for the rows after the
+ * last one read, which the primary key answers without a scan.
+ * <p>
+ * Ids are taken when a row is inserted but the row only becomes visible when its
+ * transaction commits, so a row can show up after rows with higher ids have been read.
+ * The ids skipped by a poll are asked for again until {@link #GAP_TIMEOUT}, after which
+ * their transaction is assumed to have rolled back.
+ */
+class CacheChangePoller implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(CacheChangePoller.class);
+
+	static final Duration GAP_TIMEOUT = Duration.ofMinutes(1);
+
+	/**
+	 * Most ids skipped at once that are asked for again, for when the ids jump ahead like
+	 * after a restart of the database.
+	 */
+	private static final int MAX_GAP = 100;
+
+	private static final String SELECT_AFTER = "SELECT id, node, entity, entity_id FROM cache_changes WHERE id > ? ORDER BY id";
+
+	private final JdbcTemplate jdbc;
+
+	private final CacheChangeLog log;
+
+	private final ApplicationEventPublisher events;
+
+	private final Duration interval;
+
+	private final Duration retention;
+
+	private final Map<Long, Long> gaps = new HashMap<>();
+
+	private long after;
+
+	private volatile ScheduledExecutorService executor;
+
+	CacheChangePoller(DataSource dataSource, CacheChangeLog log, ApplicationEventPublisher events, Duration interval,
+			Duration retention) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.log = log;
+		this.events = events;
+		this.interval = interval;
+		this.retention = retention;
+	}
+
+	@Override
+	public void start() {
+		// changes made before this node started cannot be in its caches
+		Long last = this.jdbc.queryForObject("SELECT MAX(id) FROM cache_changes", Long.class);
+		this.after = last != null ? last : 0;
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(() -> {
+				// listeners reading the changed entities must not get them from a lagging
+				// replica
+				ReplicaRoutingDataSource.setPinnedToPrimary(true);
+				task.run();
+			}, "cache-change-poller");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = this.interval.toMillis();
+		executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+		long retention = this.retention.toMillis();
+		executor.scheduleWithFixedDelay(this::prune, retention, retention, TimeUnit.MILLISECONDS);
+		this.executor = executor;
+	}
+
+	@Override
+	public void stop() {
+		ScheduledExecutorService executor = this.executor;
+		this.executor = null;
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.executor != null;
+	}
+
+	/**
+	 * Read the changes made since the last poll and apply those of other nodes.
+	 */
+	void poll() {
+		try {
+			long from = this.gaps.isEmpty() ? this.after : Collections.min(this.gaps.keySet()) - 1;
+			this.jdbc.query(SELECT_AFTER, row -> {
+				read(row.getLong(1), row.getString(2), row.getString(3), row.getInt(4));
+			}, from);
+			long now = System.nanoTime();
+			this.gaps.values().removeIf(deadline -> deadline - now < 0);
+		}
+		catch (Exception ex) {
+			logger.warn("Cannot read the cache changes of other nodes", ex);
+		}
+	}
+
+	private void read(long id, String node, String entity, int entityId) {
+		if (id > this.after) {
+			long deadline = System.nanoTime() + GAP_TIMEOUT.toNanos();
+			for (long skipped = Math.max(this.after + 1, id - MAX_GAP); skipped < id; skipped++) {
+				this.gaps.put(skipped, deadline);
+			}
+			this.after = id;
+		}
+		else if (this.gaps.remove(id) == null) {
+			// read by an earlier poll
+			return;
+		}
+		if (!node.equals(this.log.getNode())) {
+			this.log.evict(entity, entityId);
+			this.events.publishEvent(new RemoteChangeEvent(entity, entityId));
+		}
+	}
+
+	/**
+	 * Delete the changes older than the retention, which every node has read by now.
+	 */
+	void prune() {
+		try {
+			this.jdbc.update("DELETE FROM cache_changes WHERE changed_at < ?",
+					Timestamp.from(Instant.now().minus(this.retention)));
+		}
+		catch (Exception ex) {
+			logger.warn("Cannot delete old cache changes", ex);
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the change log through which the nodes of a cluster evict each other's
+ * cached entities, e.g. <code>app.cache-changes.poll-interval=500ms</code>.
+ */
+@ConfigurationProperties("app.cache-changes")
+class CacheChangeProperties {
+
+	/**
+	 * Whether changes are logged and read back. Only needed when several nodes share the
+	 * database, and then needed on all of them.
+	 */
+	private boolean enabled;
+
+	/**
+	 * How often each node reads the changes made by the others, which is about how long
+	 * the others keep serving an entity after it was changed.
+	 */
+	private Duration pollInterval = Duration.ofSeconds(1);
+
+	/**
+	 * How long changes are kept in the log. Must be longer than the poll interval.
+	 */
+	private Duration retention = Duration.ofHours(1);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getPollInterval() {
+		return this.pollInterval;
+	}
+
+	public void setPollInterval(Duration pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	public Duration getRetention() {
+		return this.retention;
+	}
+
+	public void setRetention(Duration retention) {
+		this.retention = retention;
+	}
+
+}
@@ -13,43 +13,178 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.springframework.samples.petclinic.system;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCache;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.samples.petclinic.system.CachingProperties.Spec;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
 
-import javax.cache.configuration.MutableConfiguration;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * creates the caches listed in {@link CachingProperties} for the application and enables
+ * statistics that become accessible via JMX and as Micrometer meters.
+ * <p>
+ * The same cache manager holds the regions of Hibernate's second-level cache, which are
+ * listed in {@link CachingProperties} like the other caches. Their statistics are
+ * published as well, tagged with the region name.
+ * <p>
+ * The caches used through the Spring cache abstraction are {@link CoalescingCache}s, so
+ * that concurrent misses share one load and entries are refreshed in the background after
+ * their refresh-after-write duration.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(CachingProperties.class)
 class CacheConfiguration {
 
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(CachingProperties properties) {
 		return cm -> {
-			cm.createCache("vets", cacheConfiguration());
+			for (Map.Entry<String, Spec> cache : properties.getCache().entrySet()) {
+				cm.createCache(cache.getKey(), cacheConfiguration(cache.getKey(), cache.getValue()));
+			}
+			// a cached query is only valid while its tables are known to be unchanged, so
+			// this region must not lose entries before the query results do
+			cm.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+					cacheConfiguration(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new Spec()));
 		};
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
+	 * Use the cache manager of the application for Hibernate's second-level cache, and
+	 * fail at startup if a region is missing instead of creating it unbounded.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager cacheManager) {
+		return properties -> {
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY,
+					MissingCacheStrategy.FAIL.getExternalRepresentation());
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+		};
+	}
+
+	/**
+	 * The JCache provider shares a cache manager between everyone asking for the same
+	 * URI, so with the default URI two application contexts in the same JVM (like test
+	 * contexts) would try to create the same caches. Each context gets its own cache
+	 * manager instead.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> customizers) {
+		CacheManager cacheManager = Caching.getCachingProvider()
+			.getCacheManager(URI.create("petclinic:" + UUID.randomUUID()), getClass().getClassLoader());
+		customizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+		return cacheManager;
+	}
+
+	/**
+	 * Expose the caches to the Spring cache abstraction, loading concurrent misses of the
+	 * same key once and refreshing entries on the application's task executor.
+	 */
+	@Bean
+	public org.springframework.cache.CacheManager cacheManager(CacheManager jCacheCacheManager,
+			CachingProperties properties,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+		return new CoalescingCacheManager(jCacheCacheManager, properties, executor);
+	}
+
+	/**
+	 * Publish Caffeine's own statistics (hits and misses, evictions and their weight)
+	 * instead of the smaller set that the JCache API provides.
+	 */
+	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public CacheMeterBinderProvider<JCacheCache> caffeineJCacheMeterBinderProvider() {
+		return (cache, tags) -> new CaffeineCacheMetrics<>(
+				cache.getNativeCache().unwrap(com.github.benmanes.caffeine.cache.Cache.class), cache.getName(), tags);
+	}
+
+	/**
+	 * Create the Caffeine configuration of a cache, with statistics enabled.
 	 * <p>
-	 * Within the configuration object that is provided by the JCache API standard, there
-	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * The JCache API only configures expiry and statistics. The size limit must be set on
+	 * the configuration of the JCache implementation. Refreshing is left to
+	 * {@link CoalescingCache}: Caffeine refreshes entries through a cache loader, but
+	 * <code>@Cacheable</code> fills the cache with values computed outside of it.
+	 * <p>
+	 * Values are stored by reference: the cached values are never modified, and copying
+	 * them on every read would cost more than loading them again.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	private CaffeineConfiguration<Object, Object> cacheConfiguration(String name, Spec spec) {
+		if (spec.getRefreshAfterWrite() != null && spec.getExpireAfterWrite() != null
+				&& spec.getRefreshAfterWrite().compareTo(spec.getExpireAfterWrite()) >= 0) {
+			// entries are only refreshed when read, and cannot be read once expired
+			throw new IllegalStateException("Cache '" + name + "' must refresh-after-write before it expires");
+		}
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setStatisticsEnabled(true);
+		configuration.setNativeStatisticsEnabled(true);
+		configuration.setStoreByValue(false);
+		configuration
+			.setMaximumSize(spec.getMaxSize() != null ? OptionalLong.of(spec.getMaxSize()) : OptionalLong.empty());
+		configuration.setExpireAfterWrite(nanos(spec.getExpireAfterWrite()));
+		return configuration;
+	}
+
+	private static OptionalLong nanos(Duration duration) {
+		return duration != null ? OptionalLong.of(duration.toNanos()) : OptionalLong.empty();
+	}
+
+	private static class CoalescingCacheManager extends JCacheCacheManager {
+
+		private final CachingProperties properties;
+
+		private final Executor executor;
+
+		CoalescingCacheManager(CacheManager cacheManager, CachingProperties properties, Executor executor) {
+			super(cacheManager);
+			this.properties = properties;
+			this.executor = executor;
+		}
+
+		@Override
+		protected Cache decorateCache(Cache cache) {
+			if (!(cache instanceof JCacheCache jcache)) {
+				return cache;
+			}
+			Spec spec = this.properties.getCache().get(cache.getName());
+			return new CoalescingCache(jcache.getNativeCache(), isAllowNullValues(),
+					spec != null ? spec.getRefreshAfterWrite() : null, this.executor);
+		}
+
 	}
 
 }
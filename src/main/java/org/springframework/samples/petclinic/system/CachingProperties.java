@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the application caches, keyed by cache name, e.g.
+ * <code>app.cache.vets.max-size=100</code>. Every cache the application uses must be
+ * listed here.
+ */
+@ConfigurationProperties("app")
+class CachingProperties {
+
+	private final Map<String, Spec> cache = new LinkedHashMap<>();
+
+	public Map<String, Spec> getCache() {
+		return this.cache;
+	}
+
+	static class Spec {
+
+		/**
+		 * Maximum number of entries, unbounded if not set.
+		 */
+		private Long maxSize;
+
+		/**
+		 * How long after it was stored an entry expires, never if not set.
+		 */
+		private Duration expireAfterWrite;
+
+		/**
+		 * How long after it was stored an entry is loaded again, never if not set. The
+		 * entry keeps being served while it is loaded again in the background, so this
+		 * must be shorter than expire-after-write.
+		 */
+		private Duration refreshAfterWrite;
+
+		public Long getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(Long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Duration getExpireAfterWrite() {
+			return this.expireAfterWrite;
+		}
+
+		public void setExpireAfterWrite(Duration expireAfterWrite) {
+			this.expireAfterWrite = expireAfterWrite;
+		}
+
+		public Duration getRefreshAfterWrite() {
+			return this.refreshAfterWrite;
+		}
+
+		public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+			this.refreshAfterWrite = refreshAfterWrite;
+		}
+
+	}
+
+}
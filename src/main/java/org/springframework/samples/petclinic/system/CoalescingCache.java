@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cache.jcache.JCacheCache;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link JCacheCache} that loads each missing key only once at a time: callers of
+ * {@link #get(Object, Callable)} that miss while a load of the same key is running wait
+ * for that load instead of starting their own. Methods annotated with
+ * <code>@Cacheable(sync = true)</code> are read this way.
+ * <p>
+ * With a refresh-after-write duration, an entry older than that is still returned, and is
+ * loaded again in the background by the first caller to see it. Entries are only missing
+ * again once they expire, so refreshing must happen before expiring for callers to keep
+ * getting an answer from the cache.
+ * <p>
+ * The loads run outside of the underlying cache, which would otherwise lock other keys
+ * while a slow query runs. The running load of a key is the generation its result belongs
+ * to: evicting or clearing drops it, and a load that has been dropped does not store its
+ * result, which may have been read before the change that caused the eviction.
+ */
+class CoalescingCache extends JCacheCache {
+
+	private static final Log logger = LogFactory.getLog(CoalescingCache.class);
+
+	private final Duration refreshAfterWrite;
+
+	private final Executor executor;
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+	CoalescingCache(javax.cache.Cache<Object, Object> cache, boolean allowNullValues,
+			@Nullable Duration refreshAfterWrite, Executor executor) {
+		super(cache, allowNullValues);
+		this.refreshAfterWrite = refreshAfterWrite;
+		this.executor = executor;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object stored = getNativeCache().get(key);
+		if (stored != null) {
+			if (stored instanceof Loaded loaded && loaded.isOlderThan(this.refreshAfterWrite)) {
+				refresh(key, valueLoader);
+			}
+			return (T) fromStoreValue(stored);
+		}
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> running = this.loads.putIfAbsent(key, load);
+		if (running != null) {
+			return (T) await(key, valueLoader, running);
+		}
+		try {
+			// another load may have finished between the lookup and now
+			stored = getNativeCache().get(key);
+			Object value = stored != null ? fromStoreValue(stored) : valueLoader.call();
+			if (stored == null) {
+				putIfCurrent(key, load, value);
+			}
+			load.complete(value);
+			return (T) value;
+		}
+		catch (Throwable ex) {
+			load.completeExceptionally(ex);
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		finally {
+			this.loads.remove(key, load);
+		}
+	}
+
+	private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+		try {
+			return load.join();
+		}
+		catch (CompletionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+	}
+
+	private void refresh(Object key, Callable<?> valueLoader) {
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		if (this.loads.putIfAbsent(key, load) != null) {
+			return;
+		}
+		this.executor.execute(() -> {
+			try {
+				Object value = valueLoader.call();
+				putIfCurrent(key, load, value);
+				load.complete(value);
+			}
+			catch (Throwable ex) {
+				logger.warn("Cannot refresh entry " + key + " of cache " + getName(), ex);
+				load.completeExceptionally(ex);
+			}
+			finally {
+				this.loads.remove(key, load);
+			}
+		});
+	}
+
+	/**
+	 * Store the result of a load unless the key was evicted or the cache cleared since it
+	 * started. The check and the put happen under the lock of the key in {@link #loads},
+	 * which {@link #evict} and {@link #clear} take before removing the entry.
+	 */
+	private void putIfCurrent(Object key, CompletableFuture<Object> load, @Nullable Object value) {
+		this.loads.computeIfPresent(key, (k, current) -> {
+			if (current == load) {
+				put(key, value);
+			}
+			return current;
+		});
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.loads.remove(key);
+		super.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		this.loads.remove(key);
+		return super.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		this.loads.clear();
+		super.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		this.loads.clear();
+		return super.invalidate();
+	}
+
+	@Override
+	protected Object toStoreValue(@Nullable Object userValue) {
+		Object value = super.toStoreValue(userValue);
+		return this.refreshAfterWrite != null ? new Loaded(value, System.nanoTime()) : value;
+	}
+
+	@Override
+	protected Object fromStoreValue(@Nullable Object storeValue) {
+		return super.fromStoreValue(storeValue instanceof Loaded loaded ? loaded.value() : storeValue);
+	}
+
+	/**
+	 * A value stored with the time it was loaded at.
+	 */
+	private record Loaded(Object value, long nanoTime) {
+
+		boolean isOlderThan(@Nullable Duration age) {
+			return age != null && System.nanoTime() - this.nanoTime >= age.toNanos();
+		}
+
+	}
+
+}
@@ -15,12 +15,17 @@
  */
 package org.springframework.samples.petclinic.system;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.lang.Nullable;
 import org.springframework.samples.petclinic.system.Application.Menu;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -32,6 +37,10 @@ import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Utilities for rendering the HTML layout (menus, logs etc.)
+ * <p>
+ * The menus are built once per active menu when the application starts, and a request
+ * only picks one of them, so the shared {@link Application} configuration is never
+ * modified while rendering.
  *
  * @author Dave Syer
  *
@@ -39,10 +48,23 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class LayoutAdvice implements HandlerInterceptor, WebMvcConfigurer {
 
-	private Application application;
+	private final Map<String, List<MenuItem>> menus;
+
+	private final List<MenuItem> defaultMenus;
 
 	public LayoutAdvice(Application application) {
-		this.application = application;
+		Map<String, List<MenuItem>> menus = new HashMap<>();
+		for (Menu active : application.getMenus()) {
+			List<MenuItem> items = new ArrayList<>();
+			for (Menu menu : application.getMenus()) {
+				items.add(
+						new MenuItem(menu.getName(), menu.getPath(), menu.getTitle(), menu.getGlyph(), menu == active));
+			}
+			menus.putIfAbsent(active.getName().toLowerCase(Locale.ROOT), Collections.unmodifiableList(items));
+		}
+		this.menus = Collections.unmodifiableMap(menus);
+		this.defaultMenus = application.getMenus().isEmpty() ? Collections.emptyList()
+				: menus(application.getMenus().get(0).getName());
 	}
 
 	@Override
@@ -54,25 +76,29 @@ public class LayoutAdvice implements HandlerInterceptor, WebMvcConfigurer {
 	@Override
 	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
 			@Nullable ModelAndView modelAndView) throws Exception {
-		for (Menu menu : application.getMenus()) {
-			menu.setActive(false);
-		}
 		if (modelAndView != null) {
 			Map<String, Object> map = modelAndView.getModel();
 			if (map.containsKey("owner") || map.containsKey("owners")) {
-				application.getMenu("owners").setActive(true);
+				modelAndView.addObject("menus", menus("owners"));
 			}
 			else if (map.containsKey("vets")) {
-				application.getMenu("vets").setActive(true);
+				modelAndView.addObject("menus", menus("vets"));
 			}
 			else {
-				application.getMenu("home").setActive(true);
+				modelAndView.addObject("menus", menus("home"));
 			}
-			modelAndView.addObject("menus", application.getMenus());
-			RequestContext context = new RequestContext(request, map);
-			for (String key : new HashSet<>(map.keySet())) {
-				if (key.startsWith("org.springframework.validation.BindingResult.")) {
-					String name = key.substring(key.lastIndexOf(".") + 1);
+			List<String> bound = null;
+			for (String key : map.keySet()) {
+				if (key.startsWith(BindingResult.MODEL_KEY_PREFIX)) {
+					if (bound == null) {
+						bound = new ArrayList<>(1);
+					}
+					bound.add(key.substring(BindingResult.MODEL_KEY_PREFIX.length()));
+				}
+			}
+			if (bound != null) {
+				RequestContext context = new RequestContext(request, map);
+				for (String name : bound) {
 					modelAndView.addObject("errors", context.getBindStatus(name + ".*").getErrorMessages());
 					if (map.get(name) instanceof Form field) {
 						field.setContext(context);
@@ -87,4 +113,14 @@ public class LayoutAdvice implements HandlerInterceptor, WebMvcConfigurer {
 		registry.addInterceptor(this);
 	}
 
+	List<MenuItem> menus(String active) {
+		return this.menus.getOrDefault(active.toLowerCase(Locale.ROOT), this.defaultMenus);
+	}
+
+	/**
+	 * A menu entry as rendered in the layout for one request.
+	 */
+	public record MenuItem(String name, String path, String title, String glyph, boolean active) {
+	}
+
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.ui.Model;
+
+/**
+ * Page navigation for a paginated list. Besides the previous and next page it links to
+ * the first and the last page and to a fixed number of pages around the current one, so
+ * the model and the rendered navigation have the same size however many pages there are.
+ */
+public final class Pagination {
+
+	/**
+	 * Number of pages linked on each side of the current page.
+	 */
+	static final int AROUND = 2;
+
+	private final int page;
+
+	private final int totalPages;
+
+	private final List<PageLink> pages;
+
+	private Pagination(int page, int totalPages, List<PageLink> pages) {
+		this.page = page;
+		this.totalPages = totalPages;
+		this.pages = pages;
+	}
+
+	/**
+	 * @param page the current page, starting at 1
+	 * @param totalPages the number of pages
+	 * @return the navigation for that page
+	 */
+	public static Pagination of(int page, int totalPages) {
+		if (totalPages < 1) {
+			return new Pagination(page, totalPages, Collections.emptyList());
+		}
+		int current = Math.max(1, Math.min(page, totalPages));
+		int from = Math.max(1, current - AROUND);
+		int to = Math.min(totalPages, current + AROUND);
+		List<PageLink> pages = new ArrayList<>(2 * AROUND + 5);
+		if (from > 1) {
+			pages.add(new PageLink(1, false, false));
+			if (from > 2) {
+				pages.add(PageLink.GAP);
+			}
+		}
+		for (int number = from; number <= to; number++) {
+			pages.add(new PageLink(number, number == page, false));
+		}
+		if (to < totalPages) {
+			if (to < totalPages - 1) {
+				pages.add(PageLink.GAP);
+			}
+			pages.add(new PageLink(totalPages, false, false));
+		}
+		return new Pagination(page, totalPages, Collections.unmodifiableList(pages));
+	}
+
+	public List<PageLink> getPages() {
+		return this.pages;
+	}
+
+	/**
+	 * Add the navigation to the model of a page that includes it, as <code>pages</code>,
+	 * <code>first</code>, <code>last</code>, <code>previous</code>, <code>next</code>,
+	 * <code>hasPages</code> and <code>totalPages</code>.
+	 * @param model the model of the page
+	 */
+	public void addTo(Model model) {
+		model.addAttribute("first", this.page == 1);
+		model.addAttribute("last", this.page == this.totalPages);
+		model.addAttribute("previous", this.page - 1);
+		model.addAttribute("next", this.page + 1);
+		model.addAttribute("pages", this.pages);
+		model.addAttribute("hasPages", this.totalPages > 1);
+		model.addAttribute("totalPages", this.totalPages);
+	}
+
+	/**
+	 * A link to a page, or the gap between pages that are not linked.
+	 */
+	public record PageLink(int number, boolean current, boolean gap) {
+
+		static final PageLink GAP = new PageLink(0, false, true);
+
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically because
+ * they block inside a <code>synchronized</code> block of a JDBC driver, connection pool
+ * or cache. Pinning is read from the <code>jdk.VirtualThreadPinned</code> flight recorder
+ * event and timed as <code>petclinic.threads.pinned</code>, tagged with the first frame
+ * outside the JDK, so that a pinning hot spot shows up in the metrics before it starves
+ * the carrier threads.
+ */
+class PinnedThreadMonitor implements SmartLifecycle {
+
+	static final String EVENT = "jdk.VirtualThreadPinned";
+
+	private static final Log logger = LogFactory.getLog(PinnedThreadMonitor.class);
+
+	private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.");
+
+	private final MeterRegistry meters;
+
+	private final Duration threshold;
+
+	private volatile RecordingStream stream;
+
+	PinnedThreadMonitor(MeterRegistry meters, Duration threshold) {
+		this.meters = meters;
+		this.threshold = threshold;
+	}
+
+	@Override
+	public void start() {
+		RecordingStream stream = new RecordingStream();
+		stream.enable(EVENT).withThreshold(this.threshold).withStackTrace();
+		stream.onEvent(EVENT, this::pinned);
+		stream.startAsync();
+		this.stream = stream;
+	}
+
+	@Override
+	public void stop() {
+		RecordingStream stream = this.stream;
+		this.stream = null;
+		if (stream != null) {
+			stream.close();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.stream != null;
+	}
+
+	private void pinned(RecordedEvent event) {
+		String frame = frame(event);
+		if (logger.isWarnEnabled()) {
+			logger.warn("Virtual thread pinned for " + event.getDuration().toMillis() + "ms in " + frame
+					+ (event.getStackTrace() != null ? "\n" + event.getStackTrace() : ""));
+		}
+		record(frame, event.getDuration());
+	}
+
+	void record(String frame, Duration duration) {
+		Timer.builder("petclinic.threads.pinned")
+			.description("Time virtual threads spent pinned to their carrier thread")
+			.tag("frame", frame)
+			.register(this.meters)
+			.record(duration);
+	}
+
+	private static String frame(RecordedEvent event) {
+		if (event.getStackTrace() == null) {
+			return "unknown";
+		}
+		for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+			String type = frame.getMethod().getType().getName();
+			if (JDK_PACKAGES.stream().noneMatch(type::startsWith)) {
+				return type + "." + frame.getMethod().getName();
+			}
+		}
+		return "jdk";
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sends the reads of a client to the primary for a while after it changed something, so
+ * that the page it is redirected to after a form submission shows its change even when
+ * the replicas have not caught up yet. The deadline travels in a cookie, so any instance
+ * of the application can honour it.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	static final String COOKIE_NAME = "petclinic-primary";
+
+	private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+	private final Duration stickyFor;
+
+	ReadYourWritesFilter(Duration stickyFor) {
+		this.stickyFor = stickyFor;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		boolean write = !SAFE_METHODS.contains(request.getMethod());
+		if (write) {
+			Cookie cookie = new Cookie(COOKIE_NAME,
+					Long.toString(System.currentTimeMillis() + this.stickyFor.toMillis()));
+			cookie.setPath("/");
+			cookie.setHttpOnly(true);
+			cookie.setMaxAge((int) Math.max(1, this.stickyFor.toSeconds()));
+			response.addCookie(cookie);
+		}
+		if (!write && !isSticky(request)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		ReplicaRoutingDataSource.setPinnedToPrimary(true);
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			ReplicaRoutingDataSource.setPinnedToPrimary(false);
+		}
+	}
+
+	private boolean isSticky(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+		if (cookie == null) {
+			return false;
+		}
+		try {
+			return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+		}
+		catch (NumberFormatException ex) {
+			return false;
+		}
+	}
+
+}
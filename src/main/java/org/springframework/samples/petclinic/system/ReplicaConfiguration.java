@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.samples.petclinic.system.ReplicaProperties.Instance;
+import org.springframework.samples.petclinic.system.ReplicaRoutingDataSource.Replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends read-only transactions, like those of the repository finders, to read replicas
+ * when any are listed in {@link ReplicaProperties}. The application then uses a
+ * {@link ReplicaRoutingDataSource} in place of the data source Spring Boot would create
+ * for the primary.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("app.replicas.instances[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+class ReplicaConfiguration {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean(destroyMethod = "close")
+	public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+			DataSourceProperties primary, ReplicaProperties properties) {
+		List<Replica> replicas = new ArrayList<>();
+		for (Instance instance : properties.getInstances()) {
+			HikariDataSource dataSource = DataSourceBuilder.create()
+				.type(HikariDataSource.class)
+				.url(instance.getUrl())
+				.username(instance.getUsername() != null ? instance.getUsername() : primary.determineUsername())
+				.password(instance.getPassword() != null ? instance.getPassword() : primary.determinePassword())
+				.build();
+			dataSource.setPoolName("replica-" + replicas.size());
+			replicas.add(new Replica(dataSource.getPoolName(), dataSource));
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas, properties.getMaxLag());
+	}
+
+	@Bean
+	@Primary
+	public LazyConnectionDataSourceProxy dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource,
+			ReplicaProperties properties) {
+		return new ReplicaLagMonitor(replicaRoutingDataSource, properties.getLagQuery(), properties.getCheckInterval());
+	}
+
+	@Bean
+	public ReadYourWritesFilter readYourWritesFilter(ReplicaProperties properties) {
+		return new ReadYourWritesFilter(properties.getStickyFor());
+	}
+
+}
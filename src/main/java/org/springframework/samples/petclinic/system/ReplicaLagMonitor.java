@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.system.ReplicaRoutingDataSource.Replica;
+
+/**
+ * Checks at a fixed interval how far each read replica is behind the primary, so that the
+ * {@link ReplicaRoutingDataSource} can skip those lagging too far. The lag comes from a
+ * database specific query; without one a replica only needs to be reachable to count as
+ * up to date.
+ */
+class ReplicaLagMonitor implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(ReplicaLagMonitor.class);
+
+	private final ReplicaRoutingDataSource dataSource;
+
+	private final String lagQuery;
+
+	private final Duration interval;
+
+	private volatile ScheduledExecutorService executor;
+
+	ReplicaLagMonitor(ReplicaRoutingDataSource dataSource, String lagQuery, Duration interval) {
+		this.dataSource = dataSource;
+		this.lagQuery = lagQuery;
+		this.interval = interval;
+	}
+
+	@Override
+	public void start() {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "replica-lag-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::check, 0, this.interval.toMillis(), TimeUnit.MILLISECONDS);
+		this.executor = executor;
+	}
+
+	@Override
+	public void stop() {
+		ScheduledExecutorService executor = this.executor;
+		this.executor = null;
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.executor != null;
+	}
+
+	/**
+	 * Check the lag of every replica now.
+	 */
+	void check() {
+		for (Replica replica : this.dataSource.getReplicas()) {
+			try {
+				replica.setLag(measure(replica));
+			}
+			catch (Exception ex) {
+				replica.unavailable(ex);
+			}
+		}
+	}
+
+	private Duration measure(Replica replica) throws Exception {
+		if (this.lagQuery == null) {
+			try (Connection connection = replica.getDataSource().getConnection()) {
+				return connection.isValid(1) ? Duration.ZERO : null;
+			}
+		}
+		Number seconds = new JdbcTemplate(replica.getDataSource()).queryForObject(this.lagQuery, Number.class);
+		if (seconds == null) {
+			logger.debug("No lag reported by replica " + replica.getName());
+			return null;
+		}
+		return Duration.ofNanos((long) (seconds.doubleValue() * TimeUnit.SECONDS.toNanos(1)));
+	}
+
+}
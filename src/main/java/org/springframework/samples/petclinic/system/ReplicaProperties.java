@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the read replicas, e.g.
+ * <code>app.replicas.instances[0].url=jdbc:postgresql://replica/petclinic</code>. Read
+ * replicas are only used when at least one instance is listed.
+ */
+@ConfigurationProperties("app.replicas")
+class ReplicaProperties {
+
+	/**
+	 * Connection settings of each replica.
+	 */
+	private final List<Instance> instances = new ArrayList<>();
+
+	/**
+	 * Query returning how far a replica is behind the primary, in seconds. The replicas
+	 * are only checked to be reachable if not set.
+	 */
+	private String lagQuery;
+
+	/**
+	 * Largest lag at which a replica is still used.
+	 */
+	private Duration maxLag = Duration.ofSeconds(1);
+
+	/**
+	 * How often the lag of each replica is checked.
+	 */
+	private Duration checkInterval = Duration.ofSeconds(5);
+
+	/**
+	 * How long a client reads from the primary after it changed something. Should be
+	 * longer than the maximum lag.
+	 */
+	private Duration stickyFor = Duration.ofSeconds(5);
+
+	public List<Instance> getInstances() {
+		return this.instances;
+	}
+
+	public String getLagQuery() {
+		return this.lagQuery;
+	}
+
+	public void setLagQuery(String lagQuery) {
+		this.lagQuery = lagQuery;
+	}
+
+	public Duration getMaxLag() {
+		return this.maxLag;
+	}
+
+	public void setMaxLag(Duration maxLag) {
+		this.maxLag = maxLag;
+	}
+
+	public Duration getCheckInterval() {
+		return this.checkInterval;
+	}
+
+	public void setCheckInterval(Duration checkInterval) {
+		this.checkInterval = checkInterval;
+	}
+
+	public Duration getStickyFor() {
+		return this.stickyFor;
+	}
+
+	public void setStickyFor(Duration stickyFor) {
+		this.stickyFor = stickyFor;
+	}
+
+	static class Instance {
+
+		/**
+		 * JDBC URL of the replica.
+		 */
+		private String url;
+
+		/**
+		 * Login username of the replica, the one of the primary if not set.
+		 */
+		private String username;
+
+		/**
+		 * Login password of the replica, the one of the primary if not set.
+		 */
+		private String password;
+
+		public String getUrl() {
+			return this.url;
+		}
+
+		public void setUrl(String url) {
+			this.url = url;
+		}
+
+		public String getUsername() {
+			return this.username;
+		}
+
+		public void setUsername(String username) {
+			this.username = username;
+		}
+
+		public String getPassword() {
+			return this.password;
+		}
+
+		public void setPassword(String password) {
+			this.password = password;
+		}
+
+	}
+
+}
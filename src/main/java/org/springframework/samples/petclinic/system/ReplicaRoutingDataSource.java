@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link DataSource} that hands out connections to the read replicas inside read-only
+ * transactions, and to the primary everywhere else. The replicas take turns, skipping
+ * those that are further behind the primary than the maximum lag or cannot be reached;
+ * the primary is used when none is left. A thread can also be pinned to the primary, for
+ * clients that must see their own writes.
+ * <p>
+ * The transaction is only known to be read-only once it has begun, after the transaction
+ * manager asked for a connection, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that asks for
+ * the real connection when the first statement runs.
+ */
+class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(ReplicaRoutingDataSource.class);
+
+	private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas;
+
+	private final Duration maxLag;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration maxLag) {
+		this.primary = primary;
+		this.replicas = replicas;
+		this.maxLag = maxLag;
+	}
+
+	/**
+	 * Pin the current thread to the primary, or release it again.
+	 * @param pinned whether all connections of the thread should go to the primary
+	 */
+	static void setPinnedToPrimary(boolean pinned) {
+		if (pinned) {
+			pinnedToPrimary.set(Boolean.TRUE);
+		}
+		else {
+			pinnedToPrimary.remove();
+		}
+	}
+
+	static boolean isPinnedToPrimary() {
+		return pinnedToPrimary.get() != null;
+	}
+
+	List<Replica> getReplicas() {
+		return this.replicas;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Replica replica = selectReplica();
+		if (replica != null) {
+			try {
+				return replica.getDataSource().getConnection();
+			}
+			catch (SQLException ex) {
+				replica.unavailable(ex);
+			}
+		}
+		return this.primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		Replica replica = selectReplica();
+		if (replica != null) {
+			try {
+				return replica.getDataSource().getConnection(username, password);
+			}
+			catch (SQLException ex) {
+				replica.unavailable(ex);
+			}
+		}
+		return this.primary.getConnection(username, password);
+	}
+
+	private Replica selectReplica() {
+		if (isPinnedToPrimary() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return null;
+		}
+		int start = this.next.getAndIncrement();
+		for (int i = 0; i < this.replicas.size(); i++) {
+			Replica replica = this.replicas.get(Math.floorMod(start + i, this.replicas.size()));
+			if (replica.isWithin(this.maxLag)) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Close the connection pools of the replicas. The primary is managed by whoever
+	 * created it.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Replica replica : this.replicas) {
+			if (replica.getDataSource() instanceof Closeable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	/**
+	 * A read replica and how far it was last seen behind the primary.
+	 */
+	static class Replica {
+
+		private final String name;
+
+		private final DataSource dataSource;
+
+		private volatile Duration lag;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		String getName() {
+			return this.name;
+		}
+
+		DataSource getDataSource() {
+			return this.dataSource;
+		}
+
+		/**
+		 * The lag at the last check, or <code>null</code> if the replica has not been
+		 * checked yet or could not be reached.
+		 */
+		Duration getLag() {
+			return this.lag;
+		}
+
+		void setLag(Duration lag) {
+			this.lag = lag;
+		}
+
+		boolean isWithin(Duration maxLag) {
+			Duration lag = this.lag;
+			return lag != null && lag.compareTo(maxLag) <= 0;
+		}
+
+		void unavailable(Exception ex) {
+			if (this.lag != null) {
+				logger.warn("Reading from the primary instead of replica " + this.name + ": " + ex.getMessage());
+			}
+			this.lag = null;
+		}
+
+	}
+
+}
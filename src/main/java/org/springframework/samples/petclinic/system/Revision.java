@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * The revision of what a page or a resource shows, made of the versions and update times
+ * of the entities it is rendered from. Answers conditional GET requests with a strong
+ * ETag and a Last-Modified date, so that a client with a current copy gets a 304 before
+ * anything is loaded or rendered.
+ * <p>
+ * The ETag and the date also cover the time the application started, because a new
+ * release can render the same data differently.
+ */
+public final class Revision {
+
+	private static final Instant STARTED = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+	private final String etag;
+
+	private final Instant lastModified;
+
+	private Revision(String etag, Instant lastModified) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * @param lastModified the last update time of the entities, may be <code>null</code>
+	 * @param state the versions, ids and counts of the entities, anything that changes
+	 * when they do
+	 * @return the revision of the entities
+	 */
+	public static Revision of(Instant lastModified, Object... state) {
+		String digest = DigestUtils
+			.md5DigestAsHex((STARTED.getEpochSecond() + Arrays.deepToString(state)).getBytes(StandardCharsets.UTF_8));
+		Instant modified = (lastModified != null && lastModified.isAfter(STARTED)) ? lastModified : STARTED;
+		return new Revision("\"" + digest + "\"", modified);
+	}
+
+	/**
+	 * @param times update times, some of which may be <code>null</code>
+	 * @return the latest of the times, or <code>null</code> if there is none
+	 */
+	public static Instant latest(Instant... times) {
+		return Arrays.stream(times).filter(Objects::nonNull).max(Instant::compareTo).orElse(null);
+	}
+
+	public String getEtag() {
+		return this.etag;
+	}
+
+	public Instant getLastModified() {
+		return this.lastModified;
+	}
+
+	/**
+	 * Check the request preconditions against this revision and set the ETag and
+	 * Last-Modified response headers.
+	 * @param request the current request
+	 * @return true if the client's copy is current and the response is a 304 that needs
+	 * no further processing
+	 */
+	public boolean checkNotModified(WebRequest request) {
+		return request.checkNotModified(this.etag, this.lastModified.toEpochMilli());
+	}
+
+}
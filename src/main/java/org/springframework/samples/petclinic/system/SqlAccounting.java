@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * The SQL statements run on behalf of one HTTP request: how many there were, how many
+ * entities they loaded and how long the JDBC driver took to execute them. Hibernate
+ * reports to the accounting of the current thread, if any, through the hooks nested in
+ * this class.
+ */
+public final class SqlAccounting {
+
+	private static final String ATTRIBUTE = SqlAccounting.class.getName();
+
+	private static final ThreadLocal<SqlAccounting> current = new ThreadLocal<>();
+
+	private int statements;
+
+	private long rows;
+
+	private long jdbcNanos;
+
+	private SqlAccounting() {
+	}
+
+	/**
+	 * Start accounting for the SQL statements that the current thread runs on behalf of a
+	 * request.
+	 */
+	static SqlAccounting start(HttpServletRequest request) {
+		SqlAccounting accounting = new SqlAccounting();
+		current.set(accounting);
+		request.setAttribute(ATTRIBUTE, accounting);
+		return accounting;
+	}
+
+	static void stop() {
+		current.remove();
+	}
+
+	/**
+	 * The accounting of a request.
+	 * @param request the request
+	 * @return the accounting, or <code>null</code> if the request did not reach a handler
+	 */
+	public static SqlAccounting of(HttpServletRequest request) {
+		return (SqlAccounting) request.getAttribute(ATTRIBUTE);
+	}
+
+	/**
+	 * The number of statements prepared, including those run in a batch.
+	 */
+	public int getStatements() {
+		return this.statements;
+	}
+
+	/**
+	 * The number of entities loaded from query results. Projections into anything else
+	 * are not counted.
+	 */
+	public long getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * The time spent executing statements, not including reading their results.
+	 */
+	public Duration getJdbcTime() {
+		return Duration.ofNanos(this.jdbcNanos);
+	}
+
+	@Override
+	public String toString() {
+		return this.statements + " statements, " + this.rows + " rows";
+	}
+
+	/**
+	 * Counts the statements and the entities loaded, for the whole session factory.
+	 */
+	static class Inspector implements StatementInspector, Interceptor {
+
+		@Override
+		public String inspect(String sql) {
+			SqlAccounting accounting = current.get();
+			if (accounting != null) {
+				accounting.statements++;
+			}
+			return sql;
+		}
+
+		@Override
+		public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+			SqlAccounting accounting = current.get();
+			if (accounting != null) {
+				accounting.rows++;
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * Times the statements of a session. Hibernate creates one of these for every
+	 * session.
+	 */
+	public static class TimingListener extends BaseSessionEventListener {
+
+		private long started;
+
+		@Override
+		public void jdbcExecuteStatementStart() {
+			this.started = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcExecuteStatementEnd() {
+			record();
+		}
+
+		@Override
+		public void jdbcExecuteBatchStart() {
+			this.started = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcExecuteBatchEnd() {
+			record();
+		}
+
+		private void record() {
+			SqlAccounting accounting = current.get();
+			if (accounting != null) {
+				accounting.jdbcNanos += System.nanoTime() - this.started;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hooks {@link SqlAccounting} into Hibernate and into the handling of requests.
+ */
+@Configuration(proxyBeanMethods = false)
+class SqlAccountingConfiguration {
+
+	@Bean
+	public HibernatePropertiesCustomizer sqlAccountingHibernateCustomizer() {
+		SqlAccounting.Inspector inspector = new SqlAccounting.Inspector();
+		return properties -> {
+			properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+			properties.put(AvailableSettings.INTERCEPTOR, inspector);
+			properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+					SqlAccounting.TimingListener.class.getName());
+		};
+	}
+
+	@Bean
+	public WebMvcConfigurer sqlAccountingConfigurer(MeterRegistry meters) {
+		SqlAccountingInterceptor interceptor = new SqlAccountingInterceptor(meters);
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(interceptor);
+			}
+
+		};
+	}
+
+}
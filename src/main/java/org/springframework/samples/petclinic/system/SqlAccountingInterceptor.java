@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Locale;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps the {@link SqlAccounting} of each request handled by a controller. The numbers
+ * are sent back in a <code>Server-Timing</code> header, which browsers show with the
+ * timings of the request, and recorded as the <code>petclinic.sql.statements</code>,
+ * <code>petclinic.sql.rows</code> and <code>petclinic.sql.time</code> metrics, tagged
+ * with the handler method.
+ * <p>
+ * The header is added before the view is rendered, as rendering may already commit the
+ * response. Pages do not run statements while rendering, since their data is loaded
+ * before.
+ */
+class SqlAccountingInterceptor implements HandlerInterceptor {
+
+	private final MeterRegistry meters;
+
+	SqlAccountingInterceptor(MeterRegistry meters) {
+		this.meters = meters;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			SqlAccounting.start(request);
+		}
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			@Nullable ModelAndView modelAndView) {
+		SqlAccounting accounting = SqlAccounting.of(request);
+		if (accounting != null && !response.isCommitted()) {
+			response.addHeader("Server-Timing", String.format(Locale.ROOT, "sql;dur=%.3f;desc=\"%s\"",
+					accounting.getJdbcTime().toNanos() / 1e6, accounting));
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			@Nullable Exception ex) {
+		SqlAccounting accounting = SqlAccounting.of(request);
+		if (accounting == null) {
+			return;
+		}
+		SqlAccounting.stop();
+		HandlerMethod method = (HandlerMethod) handler;
+		String name = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+		DistributionSummary.builder("petclinic.sql.statements")
+			.description("SQL statements run by a request")
+			.tag("handler", name)
+			.register(this.meters)
+			.record(accounting.getStatements());
+		DistributionSummary.builder("petclinic.sql.rows")
+			.description("Entities loaded by a request")
+			.tag("handler", name)
+			.register(this.meters)
+			.record(accounting.getRows());
+		Timer.builder("petclinic.sql.time")
+			.description("Time a request spent executing SQL statements")
+			.tag("handler", name)
+			.register(this.meters)
+			.record(accounting.getJdbcTime());
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mustache.MustacheProperties;
+import org.springframework.boot.web.servlet.view.MustacheView;
+import org.springframework.boot.web.servlet.view.MustacheViewResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.web.servlet.view.AbstractUrlBasedView;
+
+import com.samskivert.mustache.Mustache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Renders the Mustache views from the precompiled {@link TemplateRegistry} instead of
+ * reading and compiling the template on every request. The templates are compiled when
+ * the application starts, so a broken template fails the startup rather than the first
+ * request that uses it.
+ * <p>
+ * Views are rendered straight to the response writer. The layout calls
+ * <code>{{#flush}}{{/flush}}</code> after the page header, which sends the header to the
+ * client before the body of a large page is rendered. The response is committed from that
+ * point, so an error while rendering the body can no longer turn into an error page.
+ * <p>
+ * During development set <code>app.templates.watch</code> to the templates source
+ * directory (e.g. <code>src/main/resources/templates</code>) to load the templates from
+ * there and compile them again whenever a file changes.
+ */
+@Configuration(proxyBeanMethods = false)
+class TemplateConfiguration {
+
+	@Bean
+	public TemplateRegistry templateRegistry(Mustache.Compiler compiler, MustacheProperties properties,
+			ResourcePatternResolver resources, ObjectProvider<MeterRegistry> meters,
+			@Value("${app.templates.watch:}") String watch) throws IOException {
+		String prefix = watch.isEmpty() ? properties.getPrefix() : Path.of(watch).toUri().toString();
+		TemplateRegistry templates = new TemplateRegistry(compiler, resources, prefix, properties.getSuffix(),
+				properties.getCharset(), meters.getIfAvailable(() -> Metrics.globalRegistry));
+		templates.load();
+		return templates;
+	}
+
+	@Bean
+	@ConditionalOnProperty("app.templates.watch")
+	public TemplateWatcher templateWatcher(TemplateRegistry templates, @Value("${app.templates.watch}") Path watch) {
+		return new TemplateWatcher(templates, watch);
+	}
+
+	/**
+	 * Same settings as the resolver from Spring Boot's Mustache auto-configuration, which
+	 * backs off when this one is present.
+	 */
+	@Bean
+	public MustacheViewResolver mustacheViewResolver(Mustache.Compiler compiler, MustacheProperties properties,
+			TemplateRegistry templates) {
+		MustacheViewResolver resolver = new RegistryViewResolver(compiler, templates);
+		resolver.setPrefix(properties.getPrefix());
+		resolver.setSuffix(properties.getSuffix());
+		resolver.setCache(properties.getServlet().isCache());
+		if (properties.getServlet().getContentType() != null) {
+			resolver.setContentType(properties.getServlet().getContentType().toString());
+		}
+		resolver.setViewNames(properties.getViewNames());
+		resolver.setExposeRequestAttributes(properties.getServlet().isExposeRequestAttributes());
+		resolver.setAllowRequestOverride(properties.getServlet().isAllowRequestOverride());
+		resolver.setAllowSessionOverride(properties.getServlet().isAllowSessionOverride());
+		resolver.setExposeSessionAttributes(properties.getServlet().isExposeSessionAttributes());
+		resolver.setExposeSpringMacroHelpers(properties.getServlet().isExposeSpringMacroHelpers());
+		resolver.setRequestContextAttribute(properties.getRequestContextAttribute());
+		resolver.setCharset(properties.getCharsetName());
+		resolver.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+		return resolver;
+	}
+
+	static class RegistryViewResolver extends MustacheViewResolver {
+
+		private final TemplateRegistry templates;
+
+		RegistryViewResolver(Mustache.Compiler compiler, TemplateRegistry templates) {
+			super(compiler);
+			this.templates = templates;
+		}
+
+		@Override
+		protected Class<?> requiredViewClass() {
+			return RegistryView.class;
+		}
+
+		@Override
+		protected AbstractUrlBasedView instantiateView() {
+			return new RegistryView(this.templates);
+		}
+
+		@Override
+		protected AbstractUrlBasedView buildView(String viewName) throws Exception {
+			RegistryView view = (RegistryView) super.buildView(viewName);
+			view.name = viewName;
+			return view;
+		}
+
+	}
+
+	static class RegistryView extends MustacheView {
+
+		/**
+		 * Model key of the lambda that flushes what has been rendered so far.
+		 */
+		static final String FLUSH = "flush";
+
+		private static final Mustache.Lambda flush = (fragment, out) -> {
+			fragment.execute(out);
+			out.flush();
+		};
+
+		private final TemplateRegistry templates;
+
+		private String name;
+
+		RegistryView(TemplateRegistry templates) {
+			this.templates = templates;
+		}
+
+		@Override
+		public boolean checkResource(Locale locale) {
+			return this.templates.contains(this.name);
+		}
+
+		@Override
+		protected void renderMergedTemplateModel(Map<String, Object> model, HttpServletRequest request,
+				HttpServletResponse response) throws Exception {
+			model.put(FLUSH, flush);
+			this.templates.render(this.name, model, response.getWriter());
+		}
+
+	}
+
+}
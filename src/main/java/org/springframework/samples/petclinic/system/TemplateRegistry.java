@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.FileCopyUtils;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.MustacheException;
+import com.samskivert.mustache.Template;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * All the Mustache templates of the application, compiled once up front. Partials and
+ * parent templates (like <code>{{&lt;fragments/layout}}</code>) are resolved while
+ * compiling, so rendering a view never reads or parses a template.
+ * <p>
+ * The compiled templates are held in an immutable map. {@link #load()} compiles a
+ * complete new map and swaps it in, so a reload never exposes a partially compiled set of
+ * templates to requests that are rendering at the same time.
+ * <p>
+ * Compiling and rendering are timed per view, as <code>petclinic.templates.compile</code>
+ * and <code>petclinic.templates.render</code>.
+ */
+public class TemplateRegistry {
+
+	private final Mustache.Compiler compiler;
+
+	private final ResourcePatternResolver resources;
+
+	private final String prefix;
+
+	private final String suffix;
+
+	private final Charset charset;
+
+	private final MeterRegistry meters;
+
+	private volatile Map<String, CompiledTemplate> templates = Collections.emptyMap();
+
+	public TemplateRegistry(Mustache.Compiler compiler, ResourcePatternResolver resources, String prefix, String suffix,
+			Charset charset, MeterRegistry meters) {
+		this.compiler = compiler;
+		this.resources = resources;
+		this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+		this.suffix = suffix;
+		this.charset = charset;
+		this.meters = meters;
+	}
+
+	/**
+	 * Read and compile all the templates, and replace the current ones if they all
+	 * compile.
+	 * @throws IOException if the templates cannot be read
+	 * @throws MustacheException if a template or one of its partials cannot be compiled
+	 */
+	public void load() throws IOException {
+		Map<String, String> sources = readSources();
+		Mustache.Compiler compiler = this.compiler.withLoader(name -> source(sources, name));
+		Map<String, CompiledTemplate> templates = new HashMap<>();
+		for (Map.Entry<String, String> source : sources.entrySet()) {
+			String name = source.getKey();
+			long start = System.nanoTime();
+			Template template = compiler.compile(source.getValue());
+			template.visit(PartialResolver.INSTANCE);
+			Timer.builder("petclinic.templates.compile")
+				.tag("view", name)
+				.register(this.meters)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			templates.put(name, new CompiledTemplate(template,
+					Timer.builder("petclinic.templates.render").tag("view", name).register(this.meters)));
+		}
+		this.templates = Map.copyOf(templates);
+	}
+
+	/**
+	 * @return the names of the templates, without prefix and suffix
+	 */
+	public Set<String> getNames() {
+		return this.templates.keySet();
+	}
+
+	public boolean contains(String name) {
+		return this.templates.containsKey(name);
+	}
+
+	/**
+	 * Render a template.
+	 * @param name the name of the template, as used for the view name
+	 * @param context the model
+	 * @param out where to write the output
+	 * @throws MustacheException if there is no template with that name or it cannot be
+	 * rendered with the given context
+	 */
+	public void render(String name, Object context, Writer out) {
+		CompiledTemplate template = this.templates.get(name);
+		if (template == null) {
+			throw new MustacheException("No template named " + name);
+		}
+		template.renderTime().record(() -> template.template().execute(context, out));
+	}
+
+	private Map<String, String> readSources() throws IOException {
+		String root = this.resources.getResource(this.prefix).getURL().toString();
+		Map<String, String> sources = new HashMap<>();
+		for (Resource resource : this.resources.getResources(this.prefix + "**/*" + this.suffix)) {
+			String url = resource.getURL().toString();
+			if (url.startsWith(root) && url.endsWith(this.suffix)) {
+				String name = url.substring(root.length(), url.length() - this.suffix.length());
+				try (Reader reader = new InputStreamReader(resource.getInputStream(), this.charset)) {
+					sources.put(name, FileCopyUtils.copyToString(reader));
+				}
+			}
+		}
+		return sources;
+	}
+
+	private static Reader source(Map<String, String> sources, String name) {
+		String source = sources.get(name);
+		if (source == null) {
+			throw new MustacheException("No template named " + name);
+		}
+		return new StringReader(source);
+	}
+
+	private record CompiledTemplate(Template template, Timer renderTime) {
+	}
+
+	/**
+	 * Walks the whole template tree, which makes JMustache load and cache every partial
+	 * and parent template the first time it is visited.
+	 */
+	private static class PartialResolver implements Mustache.Visitor {
+
+		static final PartialResolver INSTANCE = new PartialResolver();
+
+		@Override
+		public void visitText(String text) {
+		}
+
+		@Override
+		public void visitVariable(String name) {
+		}
+
+		@Override
+		public boolean visitInclude(String name) {
+			return true;
+		}
+
+		@Override
+		public boolean visitParent(String name) {
+			return true;
+		}
+
+		@Override
+		public boolean visitBlock(String name) {
+			return true;
+		}
+
+		@Override
+		public boolean visitSection(String name) {
+			return true;
+		}
+
+		@Override
+		public boolean visitInvertedSection(String name) {
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Development helper that reloads the {@link TemplateRegistry} when a template file
+ * changes. Templates that fail to compile are reported and the previous ones stay in use.
+ */
+class TemplateWatcher implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(TemplateWatcher.class);
+
+	private final TemplateRegistry templates;
+
+	private final Path directory;
+
+	private volatile WatchService watcher;
+
+	TemplateWatcher(TemplateRegistry templates, Path directory) {
+		this.templates = templates;
+		this.directory = directory;
+	}
+
+	@Override
+	public void start() {
+		try {
+			this.watcher = FileSystems.getDefault().newWatchService();
+			register();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot watch templates in " + this.directory, ex);
+		}
+		Thread thread = new Thread(this::watch, "template-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		WatchService watcher = this.watcher;
+		this.watcher = null;
+		if (watcher != null) {
+			try {
+				watcher.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.watcher != null;
+	}
+
+	private void register() throws IOException {
+		try (Stream<Path> directories = Files.walk(this.directory)) {
+			for (Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+				directory.register(this.watcher, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			}
+		}
+	}
+
+	private void watch() {
+		try {
+			while (this.watcher != null) {
+				WatchKey key = this.watcher.take();
+				// editors often write a file in several steps, wait for them to finish
+				TimeUnit.MILLISECONDS.sleep(100);
+				do {
+					key.pollEvents();
+					key.reset();
+				}
+				while ((key = this.watcher.poll()) != null);
+				reload();
+			}
+		}
+		catch (ClosedWatchServiceException | InterruptedException ex) {
+			// stopped
+		}
+	}
+
+	private void reload() {
+		try {
+			this.templates.load();
+			register();
+			logger.info("Reloaded templates from " + this.directory);
+		}
+		catch (Exception ex) {
+			logger.error("Cannot reload templates from " + this.directory, ex);
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Support for running on virtual threads, opted into with
+ * <code>spring.threads.virtual.enabled=true</code> on Java 21 or later. Spring Boot then
+ * handles every request, including its transactional repository calls and the view
+ * rendering, on a new virtual thread instead of a Tomcat worker. This configuration adds
+ * a {@link PinnedThreadMonitor} to report when those threads get pinned.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+class ThreadingConfiguration {
+
+	@Bean
+	PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry meters,
+			@Value("${app.threads.pinned-threshold:20ms}") Duration threshold) {
+		return new PinnedThreadMonitor(meters, threshold);
+	}
+
+}
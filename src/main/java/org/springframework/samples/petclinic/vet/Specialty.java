@@ -18,15 +18,19 @@ package org.springframework.samples.petclinic.vet;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
 /**
- * Models a {@link Vet Vet's} specialty (for example, dentistry).
+ * Models a {@link Vet Vet's} specialty (for example, dentistry). Specialties are never
+ * changed once created and are kept in a read-only second-level cache region.
  *
  * @author Juergen Hoeller
  */
 @Entity
 @Table(name = "specialties")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "specialtyEntities")
 public class Specialty extends NamedEntity {
 
 }
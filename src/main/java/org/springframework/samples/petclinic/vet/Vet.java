@@ -15,8 +15,8 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.samples.petclinic.model.Person;
 
 import jakarta.persistence.*;
@@ -24,7 +24,9 @@ import jakarta.xml.bind.annotation.XmlElement;
 import java.util.*;
 
 /**
- * Simple JavaBean domain object representing a veterinarian.
+ * Simple JavaBean domain object representing a veterinarian. Vets and their specialties
+ * rarely change and are kept in the second-level cache, where a change only needs to be
+ * visible once its transaction has committed.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -33,13 +35,23 @@ import java.util.*;
  */
 @Entity
 @Table(name = "vets")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "vetEntities")
 public class Vet extends Person {
 
+	private static final Comparator<Specialty> BY_NAME = Comparator.comparing(Specialty::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
 	@ManyToMany(fetch = FetchType.EAGER)
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "vetSpecialties")
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
 	private Set<Specialty> specialties;
 
+	// vets are shared between threads through the vets cache; the sorted list is
+	// immutable, so threads racing to create it at worst sort twice
+	@Transient
+	private List<Specialty> sortedSpecialties;
+
 	protected Set<Specialty> getSpecialtiesInternal() {
 		if (this.specialties == null) {
 			this.specialties = new HashSet<>();
@@ -49,13 +61,17 @@ public class Vet extends Person {
 
 	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
 		this.specialties = specialties;
+		this.sortedSpecialties = null;
 	}
 
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedSpecs);
+		List<Specialty> sortedSpecialties = this.sortedSpecialties;
+		if (sortedSpecialties == null) {
+			sortedSpecialties = getSpecialtiesInternal().stream().sorted(BY_NAME).toList();
+			this.sortedSpecialties = sortedSpecialties;
+		}
+		return sortedSpecialties;
 	}
 
 	public int getNrOfSpecialties() {
@@ -68,6 +84,7 @@ public class Vet extends Person {
 
 	public void addSpecialty(Specialty specialty) {
 		getSpecialtiesInternal().add(specialty);
+		this.sortedSpecialties = null;
 	}
 
 }
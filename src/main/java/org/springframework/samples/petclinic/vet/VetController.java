@@ -15,19 +15,16 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.system.Pagination;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * @author Juergen Hoeller
@@ -38,57 +35,49 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 class VetController {
 
-	private final VetRepository vets;
+	private final VetDirectory vets;
 
-	public VetController(VetRepository clinicService) {
-		this.vets = clinicService;
+	public VetController(VetDirectory vets) {
+		this.vets = vets;
 	}
 
 	@GetMapping("/vets.html")
-	public String showVetList(@RequestParam(defaultValue = "1") int page, Model model) {
+	public String showVetList(@RequestParam(defaultValue = "1") int page, Model model, WebRequest request) {
+		if (this.vets.getSnapshot().getRevision().checkNotModified(request)) {
+			return null;
+		}
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for Object-Xml mapping
 		Vets vets = new Vets();
 		Page<Vet> paginated = findPaginated(page);
-		vets.getVetList().addAll(paginated.toList());
+		vets.getVetList().addAll(paginated.getContent());
 		model.addAttribute("vets", vets);
+		model.addAttribute("listVets", paginated.getContent());
 		return addPaginationModel(page, paginated, model);
 
 	}
 
 	private String addPaginationModel(int page, Page<Vet> paginated, Model model) {
-		model.addAttribute("first", page == 1);
-		model.addAttribute("last", page == paginated.getTotalPages());
-		model.addAttribute("previous", page - 1);
-		model.addAttribute("next", page + 1);
-		model.addAttribute("pages",
-				IntStream.range(1, paginated.getTotalPages() + 1)
-					.mapToObj(value -> pagemodel(value, page))
-					.collect(Collectors.toList()));
-		model.addAttribute("hasPages", paginated.getTotalPages() > 1);
-		model.addAttribute("totalPages", paginated.getTotalPages());
+		Pagination.of(page, paginated.getTotalPages()).addTo(model);
 		return "vets/vetList";
 	}
 
-	private Map<String, Object> pagemodel(int value, int page) {
-		HashMap<String, Object> map = new HashMap<>();
-		map.put("current", value == page);
-		map.put("number", value);
-		return map;
-	}
-
 	private Page<Vet> findPaginated(int page) {
 		int pageSize = 5;
 		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return vets.findAll(pageable);
+		return vets.getSnapshot().getPage(pageable);
 	}
 
 	@GetMapping({ "/vets" })
-	public @ResponseBody Vets showResourcesVetList() {
+	public @ResponseBody Vets showResourcesVetList(WebRequest request) {
+		VetSnapshot snapshot = this.vets.getSnapshot();
+		if (snapshot.getRevision().checkNotModified(request)) {
+			return null;
+		}
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for JSon/Object mapping
 		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vets.findAll());
+		vets.getVetList().addAll(snapshot.getVets());
 		return vets;
 	}
 
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.samples.petclinic.system.RemoteChangeEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of the {@link VetSnapshot}, which serves the vet list page and the
+ * vets resource. The snapshot is kept in the <code>vets</code> cache until it expires, a
+ * vet is saved through {@link VetRepository#save(Vet)} or {@link #refresh()} is called.
+ * Requests arriving while the snapshot is loaded wait for that load, and a snapshot older
+ * than the refresh-after-write of the cache is still served while a newer one is loaded
+ * in the background.
+ */
+@Component
+public class VetDirectory {
+
+	private final VetRepository vets;
+
+	public VetDirectory(VetRepository vets) {
+		this.vets = vets;
+	}
+
+	@Cacheable(cacheNames = "vets", key = "'all'", sync = true)
+	public VetSnapshot getSnapshot() {
+		return new VetSnapshot(this.vets.findAll());
+	}
+
+	/**
+	 * Drop the cached snapshot, so that the next request reads the vets again. Call this
+	 * after changing vets or specialties other than through {@link VetRepository}.
+	 */
+	@CacheEvict(cacheNames = "vets", allEntries = true)
+	public void refresh() {
+	}
+
+	/**
+	 * Drop the cached snapshot when a vet was changed by another node of the cluster.
+	 * @param change the change made by the other node
+	 */
+	@EventListener(condition = "#change.entity() == 'Vet'")
+	@CacheEvict(cacheNames = "vets", allEntries = true)
+	public void onRemoteChange(RemoteChangeEvent change) {
+	}
+
+}
@@ -15,10 +15,11 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,11 +39,12 @@ import java.util.Collection;
 public interface VetRepository extends Repository<Vet, Integer> {
 
 	/**
-	 * Retrieve all <code>Vet</code>s from the data store.
+	 * Retrieve all <code>Vet</code>s with their specialties from the data store. Use
+	 * {@link VetDirectory} to read them from the cache instead.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
+	@Query("SELECT DISTINCT vet FROM Vet vet LEFT JOIN FETCH vet.specialties ORDER BY vet.id")
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
 	/**
@@ -52,9 +54,14 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 * @throws DataAccessException
 	 */
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
 	Page<Vet> findAll(Pageable pageable) throws DataAccessException;
 
-	;
+	/**
+	 * Save a <code>Vet</code> to the data store, either inserting or updating it, and
+	 * evict the cached vets.
+	 * @param vet the <code>Vet</code> to save
+	 */
+	@CacheEvict(cacheNames = "vets", allEntries = true)
+	void save(Vet vet) throws DataAccessException;
 
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.system.Revision;
+
+/**
+ * Immutable list of all the {@link Vet}s with their specialties, from which pages are cut
+ * without going back to the data store.
+ */
+public final class VetSnapshot {
+
+	private final List<Vet> vets;
+
+	private final Revision revision;
+
+	public VetSnapshot(Collection<Vet> vets) {
+		this.vets = List.copyOf(vets);
+		this.revision = revision(this.vets);
+	}
+
+	private static Revision revision(List<Vet> vets) {
+		List<Object> state = new ArrayList<>();
+		Instant lastModified = null;
+		for (Vet vet : vets) {
+			state.add(vet.getId());
+			state.add(vet.getVersion());
+			lastModified = Revision.latest(lastModified, vet.getUpdatedAt());
+			for (Specialty specialty : vet.getSpecialties()) {
+				state.add(specialty.getId());
+				state.add(specialty.getVersion());
+				lastModified = Revision.latest(lastModified, specialty.getUpdatedAt());
+			}
+		}
+		return Revision.of(lastModified, state.toArray());
+	}
+
+	/**
+	 * @return all the vets
+	 */
+	public List<Vet> getVets() {
+		return this.vets;
+	}
+
+	/**
+	 * @return the revision of the vets and their specialties, shared by every page
+	 */
+	public Revision getRevision() {
+		return this.revision;
+	}
+
+	/**
+	 * @param pageable the page to return
+	 * @return a page of the vets, empty if it is past the last vet
+	 */
+	public Page<Vet> getPage(Pageable pageable) {
+		int from = (int) Math.min(pageable.getOffset(), this.vets.size());
+		int to = Math.min(from + pageable.getPageSize(), this.vets.size());
+		return new PageImpl<>(this.vets.subList(from, to), pageable, this.vets.size());
+	}
+
+}
@@ -16,10 +16,18 @@
 package org.springframework.samples.petclinic.visit;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Repository class for <code>Visit</code> domain objects All method names are compliant
@@ -43,4 +51,58 @@ public interface VisitRepository extends Repository<Visit, Integer> {
 
 	List<Visit> findByPetId(Integer petId);
 
+	/**
+	 * Retrieve one page of the <code>Visit</code>s of a pet, most recent first.
+	 * @param petId the id of the pet
+	 * @param pageable the page to retrieve
+	 * @return the visits on that page
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId ORDER BY visit.date DESC, visit.id DESC")
+	Page<Visit> findByPetId(@Param("petId") Integer petId, Pageable pageable);
+
+	/**
+	 * Retrieve the <code>Visit</code>s of several pets with a single query.
+	 * @param petIds the ids of the pets
+	 * @return the visits of all the given pets, in no particular order
+	 */
+	List<Visit> findByPetIdIn(Collection<Integer> petIds);
+
+	/**
+	 * Retrieve the <code>Visit</code>s of several pets with a single query, grouped by
+	 * pet id. Pets without visits have no entry in the result.
+	 * @param petIds the ids of the pets
+	 * @return a <code>Map</code> of pet id to the visits of that pet
+	 */
+	default Map<Integer, List<Visit>> findGroupedByPetId(Collection<Integer> petIds) {
+		if (petIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return findByPetIdIn(petIds).stream().collect(Collectors.groupingBy(Visit::getPetId));
+	}
+
+	/**
+	 * Retrieve the most recent <code>Visit</code>s of each of several pets with a single
+	 * query. The visits are ranked per pet with a window function, which reads them in
+	 * the order of the <code>(pet_id, visit_date)</code> index.
+	 * @param petIds the ids of the pets
+	 * @param limit the maximum number of visits per pet
+	 * @return the visits of all the given pets, by pet and most recent first
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.id IN (SELECT ranked.id FROM (SELECT v.id AS id, row_number() OVER (PARTITION BY v.petId ORDER BY v.date DESC, v.id DESC) AS position FROM Visit v WHERE v.petId IN :petIds) ranked WHERE ranked.position <= :limit) ORDER BY visit.petId, visit.date DESC, visit.id DESC")
+	List<Visit> findRecentByPetIdIn(@Param("petIds") Collection<Integer> petIds, @Param("limit") int limit);
+
+	/**
+	 * Retrieve the most recent <code>Visit</code>s of each of several pets with a single
+	 * query, grouped by pet id. Pets without visits have no entry in the result.
+	 * @param petIds the ids of the pets
+	 * @param limit the maximum number of visits per pet
+	 * @return a <code>Map</code> of pet id to the visits of that pet, most recent first
+	 */
+	default Map<Integer, List<Visit>> findRecentGroupedByPetId(Collection<Integer> petIds, int limit) {
+		if (petIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return findRecentByPetIdIn(petIds, limit).stream().collect(Collectors.groupingBy(Visit::getPetId));
+	}
+
 }
@@ -1,22 +1,34 @@
 DROP TABLE vet_specialties IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
+DROP TABLE owner_summary IF EXISTS;
 DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP TABLE cache_changes IF EXISTS;
+DROP SEQUENCE vets_seq IF EXISTS;
+DROP SEQUENCE specialties_seq IF EXISTS;
+DROP SEQUENCE types_seq IF EXISTS;
+DROP SEQUENCE owners_seq IF EXISTS;
+DROP SEQUENCE pets_seq IF EXISTS;
+DROP SEQUENCE visits_seq IF EXISTS;
 
 
 CREATE TABLE vets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR(30)
+  last_name  VARCHAR(30),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
-  id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id         INTEGER PRIMARY KEY,
+  name       VARCHAR(80),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 CREATE INDEX specialties_name ON specialties (name);
 
@@ -28,37 +40,78 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
 
 CREATE TABLE types (
-  id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id         INTEGER PRIMARY KEY,
+  name       VARCHAR(80),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 CREATE INDEX types_name ON types (name);
 
 CREATE TABLE owners (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 CREATE INDEX owners_last_name ON owners (last_name);
 
 CREATE TABLE pets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER
+  owner_id   INTEGER,
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
 CREATE INDEX pets_name ON pets (name);
 
 CREATE TABLE visits (
-  id          INTEGER IDENTITY PRIMARY KEY,
+  id          INTEGER PRIMARY KEY,
   pet_id      INTEGER,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL,
+  updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_pet_id ON visits (pet_id, visit_date);
+
+-- One row per owner for the owner search, rewritten whenever the owner, one of its pets
+-- or one of their visits is saved
+CREATE TABLE owner_summary (
+  owner_id   INTEGER PRIMARY KEY,
+  first_name VARCHAR(30),
+  last_name  VARCHAR_IGNORECASE(30),
+  address    VARCHAR(255),
+  city       VARCHAR(80),
+  telephone  VARCHAR(20),
+  pet_names  VARCHAR(1000),
+  pet_count  INTEGER DEFAULT 0 NOT NULL,
+  last_visit DATE
+);
+ALTER TABLE owner_summary ADD CONSTRAINT fk_owner_summary_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
+CREATE INDEX owner_summary_last_name ON owner_summary (last_name, owner_id);
+
+-- Entities changed on any node, read by every node to evict them from its caches
+CREATE TABLE cache_changes (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  node       VARCHAR(36) NOT NULL,
+  entity     VARCHAR(30) NOT NULL,
+  entity_id  INTEGER NOT NULL,
+  changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Ids are allocated by Hibernate in blocks of 50, starting after the sample data
+CREATE SEQUENCE vets_seq START WITH 7 INCREMENT BY 50;
+CREATE SEQUENCE specialties_seq START WITH 4 INCREMENT BY 50;
+CREATE SEQUENCE types_seq START WITH 7 INCREMENT BY 50;
+CREATE SEQUENCE owners_seq START WITH 11 INCREMENT BY 50;
+CREATE SEQUENCE pets_seq START WITH 14 INCREMENT BY 50;
+CREATE SEQUENCE visits_seq START WITH 5 INCREMENT BY 50;
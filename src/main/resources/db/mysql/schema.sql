@@ -1,13 +1,17 @@
 CREATE TABLE IF NOT EXISTS vets (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS specialties (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(80),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -20,36 +24,194 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS types (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(80),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   INDEX(name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS owners (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(30),
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED,
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   INDEX(name),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS visits (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   pet_id INT(4) UNSIGNED,
   visit_date DATE,
   description VARCHAR(255),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  INDEX visits_pet_id_visit_date (pet_id, visit_date),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- Tables created by an older version of Petclinic miss the columns and indexes added
+-- since. MySQL cannot add a column or an index only if it is missing, so each one is
+-- looked up in information_schema and added through a prepared statement when absent.
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE vets ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'vets' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE vets ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'vets' AND column_name = 'updated_at');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE specialties ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'specialties' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE specialties ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'specialties' AND column_name = 'updated_at');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE types ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'types' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE types ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'types' AND column_name = 'updated_at');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE owners ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE owners ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'updated_at');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE pets ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'pets' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE pets ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'pets' AND column_name = 'updated_at');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE visits ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE visits ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP', 'DO 0')
+  FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'updated_at');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE visits ADD INDEX visits_pet_id_visit_date (pet_id, visit_date)', 'DO 0')
+  FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'visits'
+  AND column_name = 'visit_date' AND seq_in_index = 2);
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- One row per owner for the owner search, rewritten whenever the owner, one of its pets
+-- or one of their visits is saved
+CREATE TABLE IF NOT EXISTS owner_summary (
+  owner_id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  first_name VARCHAR(30),
+  last_name VARCHAR(30),
+  address VARCHAR(255),
+  city VARCHAR(80),
+  telephone VARCHAR(20),
+  pet_names VARCHAR(1000),
+  pet_count INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  last_visit DATE,
+  INDEX(last_name, owner_id),
+  FOREIGN KEY (owner_id) REFERENCES owners(id)
+) engine=InnoDB;
+
+-- Entities changed on any node, read by every node to evict them from its caches
+CREATE TABLE IF NOT EXISTS cache_changes (
+  id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  node VARCHAR(36) NOT NULL,
+  entity VARCHAR(30) NOT NULL,
+  entity_id INT(4) UNSIGNED NOT NULL,
+  changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) engine=InnoDB;
+
+-- Ids are allocated by Hibernate in blocks of 50, starting after the sample data.
+-- MySQL has no sequences, so each one is emulated by a table with a single row.
+-- A database created before these tables may hold higher ids already, so each one is
+-- moved past the highest id of its table. It is never moved back, because running
+-- applications may hold blocks of ids below its current value.
+CREATE TABLE IF NOT EXISTS vets_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO vets_seq SELECT 7 FROM DUAL WHERE NOT EXISTS (SELECT * FROM vets_seq);
+UPDATE vets_seq SET next_val = (SELECT MAX(id) + 1 FROM vets) WHERE next_val <= (SELECT MAX(id) FROM vets);
+
+CREATE TABLE IF NOT EXISTS specialties_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO specialties_seq SELECT 4 FROM DUAL WHERE NOT EXISTS (SELECT * FROM specialties_seq);
+UPDATE specialties_seq SET next_val = (SELECT MAX(id) + 1 FROM specialties) WHERE next_val <= (SELECT MAX(id) FROM specialties);
+
+CREATE TABLE IF NOT EXISTS types_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO types_seq SELECT 7 FROM DUAL WHERE NOT EXISTS (SELECT * FROM types_seq);
+UPDATE types_seq SET next_val = (SELECT MAX(id) + 1 FROM types) WHERE next_val <= (SELECT MAX(id) FROM types);
+
+CREATE TABLE IF NOT EXISTS owners_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO owners_seq SELECT 11 FROM DUAL WHERE NOT EXISTS (SELECT * FROM owners_seq);
+UPDATE owners_seq SET next_val = (SELECT MAX(id) + 1 FROM owners) WHERE next_val <= (SELECT MAX(id) FROM owners);
+
+CREATE TABLE IF NOT EXISTS pets_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO pets_seq SELECT 14 FROM DUAL WHERE NOT EXISTS (SELECT * FROM pets_seq);
+UPDATE pets_seq SET next_val = (SELECT MAX(id) + 1 FROM pets) WHERE next_val <= (SELECT MAX(id) FROM pets);
+
+CREATE TABLE IF NOT EXISTS visits_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO visits_seq SELECT 5 FROM DUAL WHERE NOT EXISTS (SELECT * FROM visits_seq);
+UPDATE visits_seq SET next_val = (SELECT MAX(id) + 1 FROM visits) WHERE next_val <= (SELECT MAX(id) FROM visits);
@@ -1,13 +1,17 @@
 CREATE TABLE IF NOT EXISTS vets (
-  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INT PRIMARY KEY,
   first_name TEXT,
-  last_name  TEXT
+  last_name  TEXT,
+  version    INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 CREATE INDEX ON vets (last_name);
 
 CREATE TABLE IF NOT EXISTS specialties (
-  id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name TEXT
+  id         INT PRIMARY KEY,
+  name       TEXT,
+  version    INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 CREATE INDEX ON specialties (name);
 
@@ -18,35 +22,106 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 );
 
 CREATE TABLE IF NOT EXISTS types (
-  id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name TEXT
+  id         INT PRIMARY KEY,
+  name       TEXT,
+  version    INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 CREATE INDEX ON types (name);
 
 CREATE TABLE IF NOT EXISTS owners (
-  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INT PRIMARY KEY,
   first_name TEXT,
   last_name  TEXT,
   address    TEXT,
   city       TEXT,
-  telephone  TEXT
+  telephone  TEXT,
+  version    INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 CREATE INDEX ON owners (last_name);
 
 CREATE TABLE IF NOT EXISTS pets (
-  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INT PRIMARY KEY,
   name       TEXT,
   birth_date DATE,
   type_id    INT NOT NULL REFERENCES types (id),
-  owner_id   INT REFERENCES owners (id)
+  owner_id   INT REFERENCES owners (id),
+  version    INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 CREATE INDEX ON pets (name);
 CREATE INDEX ON pets (owner_id);
 
 CREATE TABLE IF NOT EXISTS visits (
-  id          INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id          INT PRIMARY KEY,
   pet_id      INT REFERENCES pets (id),
   visit_date  DATE,
-  description TEXT
+  description TEXT,
+  version     INT NOT NULL DEFAULT 0,
+  updated_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+-- Tables created by an older version of Petclinic miss the version columns added since.
+-- The indexes added since are named, so they are created on those tables too.
+ALTER TABLE vets ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE vets ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE specialties ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE specialties ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE types ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE types ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE pets ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE pets ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE visits ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE visits ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- One row per owner for the owner search, rewritten whenever the owner, one of its pets
+-- or one of their visits is saved
+CREATE TABLE IF NOT EXISTS owner_summary (
+  owner_id   INT PRIMARY KEY REFERENCES owners (id),
+  first_name TEXT,
+  last_name  TEXT,
+  address    TEXT,
+  city       TEXT,
+  telephone  TEXT,
+  pet_names  TEXT,
+  pet_count  INT NOT NULL DEFAULT 0,
+  last_visit DATE
 );
-CREATE INDEX ON visits (pet_id);
+CREATE INDEX IF NOT EXISTS owner_summary_last_name_owner_id ON owner_summary (last_name, owner_id);
+
+-- Entities changed on any node, read by every node to evict them from its caches
+CREATE TABLE IF NOT EXISTS cache_changes (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  node       VARCHAR(36) NOT NULL,
+  entity     VARCHAR(30) NOT NULL,
+  entity_id  INT NOT NULL,
+  changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Ids are allocated by Hibernate in blocks of 50, starting after the sample data
+CREATE SEQUENCE IF NOT EXISTS vets_seq START WITH 7 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS specialties_seq START WITH 4 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS types_seq START WITH 7 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS owners_seq START WITH 11 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS pets_seq START WITH 14 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS visits_seq START WITH 5 INCREMENT BY 50;
+
+-- A database created before the sequences may hold higher ids already, so each sequence
+-- is moved past the highest id of its table. It is never moved back, because running
+-- applications may hold blocks of ids below its current value.
+SELECT setval('vets_seq', (SELECT MAX(id) + 1 FROM vets), false)
+  WHERE (SELECT MAX(id) FROM vets) >= (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM vets_seq);
+SELECT setval('specialties_seq', (SELECT MAX(id) + 1 FROM specialties), false)
+  WHERE (SELECT MAX(id) FROM specialties) >= (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM specialties_seq);
+SELECT setval('types_seq', (SELECT MAX(id) + 1 FROM types), false)
+  WHERE (SELECT MAX(id) FROM types) >= (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM types_seq);
+SELECT setval('owners_seq', (SELECT MAX(id) + 1 FROM owners), false)
+  WHERE (SELECT MAX(id) FROM owners) >= (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM owners_seq);
+SELECT setval('pets_seq', (SELECT MAX(id) + 1 FROM pets), false)
+  WHERE (SELECT MAX(id) FROM pets) >= (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM pets_seq);
+SELECT setval('visits_seq', (SELECT MAX(id) + 1 FROM visits), false)
+  WHERE (SELECT MAX(id) FROM visits) >= (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM visits_seq);
@@ -16,11 +16,25 @@
 
 package org.springframework.samples.petclinic;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetTypeRegistry;
+import org.springframework.samples.petclinic.system.Revision;
+import org.springframework.samples.petclinic.vet.VetDirectory;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.vet.VetSnapshot;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
 
 @SpringBootTest
 class PetclinicIntegrationTests {
@@ -28,14 +42,82 @@ class PetclinicIntegrationTests {
 	@Autowired
 	private VetRepository vets;
 
+	@Autowired
+	private VetDirectory directory;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private PetTypeRegistry types;
+
 	public static void main(String[] args) {
 		SpringApplication.run(PetClinicApplication.class, args);
 	}
 
 	@Test
 	void testFindAll() throws Exception {
-		vets.findAll();
-		vets.findAll(); // served from cache
+		VetSnapshot snapshot = directory.getSnapshot();
+		assertThat(directory.getSnapshot()).isSameAs(snapshot); // served from cache
+		assertThat(snapshot.getVets()).hasSize(6);
+	}
+
+	@Test
+	void testSaveEvictsVets() throws Exception {
+		VetSnapshot snapshot = directory.getSnapshot();
+		vets.save(snapshot.getVets().get(0));
+		assertThat(directory.getSnapshot()).isNotSameAs(snapshot);
+	}
+
+	@Test
+	void testSaveIncrementsVersion() throws Exception {
+		Owner owner = newOwner();
+		assertThat(owner.getVersion()).isZero();
+		owner.setCity("Middleton");
+		owners.save(owner);
+		Owner saved = owners.findById(owner.getId());
+		assertThat(saved.getVersion()).isEqualTo(1);
+		assertThat(saved.getUpdatedAt()).isNotNull();
+	}
+
+	@Test
+	void testOwnerRevisionFollowsPetsAndVisits() throws Exception {
+		Owner owner = newOwner();
+		Revision created = owners.findRevisionById(owner.getId());
+		assertThat(owners.findRevisionById(owner.getId()).getEtag()).isEqualTo(created.getEtag());
+
+		Pet pet = new Pet();
+		pet.setName("Rex");
+		pet.setType(types.getPetTypes().findByName("dog"));
+		owner.addPet(pet);
+		pets.save(pet);
+		Revision withPet = owners.findRevisionById(owner.getId());
+		assertThat(withPet.getEtag()).isNotEqualTo(created.getEtag());
+
+		Visit visit = new Visit();
+		visit.setPetId(pet.getId());
+		visit.setDate(LocalDate.now());
+		visit.setDescription("check-up");
+		visits.save(visit);
+		assertThat(owners.findRevisionById(owner.getId()).getEtag()).isNotEqualTo(withPet.getEtag());
+		assertThat(owners.findRevisionById(-1)).isNull();
+	}
+
+	private Owner newOwner() {
+		Owner owner = new Owner();
+		owner.setFirstName("Jane");
+		owner.setLastName("Revision");
+		owner.setAddress("1 Main St.");
+		owner.setCity("Madison");
+		owner.setTelephone("6085550000");
+		owners.save(owner);
+		return owner;
 	}
 
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link ClinicExporter}
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ClinicExporterTests {
+
+	@Autowired
+	private ClinicExporter exporter;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void testExportCsv() throws Exception {
+		String csv = export(ImportFormat.CSV);
+		assertThat(csv).contains("""
+				owner,Jean,Coleman,105 N. Lake St.,Monona,6085552654
+				pet,Samantha,2012-09-04,cat
+				visit,2013-01-01,rabies shot
+				visit,2013-01-04,spayed
+				pet,Max,2012-09-04,cat
+				visit,2013-01-02,rabies shot
+				visit,2013-01-03,neutered
+				owner,Jeff,Black,1450 Oak Blvd.,Monona,6085555387
+				pet,Lucky,2011-08-06,bird
+				owner,""");
+	}
+
+	@Test
+	void testExportNdjson() throws Exception {
+		String ndjson = export(ImportFormat.NDJSON);
+		assertThat(ndjson).startsWith("""
+				{"kind":"owner","firstName":"George","lastName":"Franklin",""").contains("""
+				{"kind":"pet","name":"Basil","birthDate":"2012-08-06","type":"hamster"}
+				""");
+	}
+
+	@Test
+	void testExportIsReadBackByImport() throws Exception {
+		for (ImportFormat format : ImportFormat.values()) {
+			List<ImportRow> rows = new ArrayList<>();
+			try (RowReader reader = format
+				.open(new ByteArrayInputStream(export(format).getBytes(StandardCharsets.UTF_8)))) {
+				for (ImportRow row = reader.next(); row != null; row = reader.next()) {
+					rows.add(row);
+				}
+			}
+			assertThat(rows).allSatisfy((row) -> assertThat(row.error()).isNull());
+			assertThat(rows).filteredOn((row) -> "owner".equals(row.kind())).hasSizeGreaterThanOrEqualTo(10);
+			assertThat(rows).filteredOn((row) -> "visit".equals(row.kind()))
+				.extracting((row) -> row.get("description"))
+				.contains("rabies shot", "spayed", "neutered");
+		}
+	}
+
+	@Test
+	void testCsvQuotesValues() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		RowWriter writer = ImportFormat.CSV.create(output);
+		writer.write("visit", "2023-01-01", "shots, \"annual\"\nand a checkup");
+		writer.write("pet", "Leo", null, "cat");
+		writer.flush();
+		assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("""
+				visit,2023-01-01,"shots, ""annual"" and a checkup"
+				pet,Leo,,cat
+				""");
+	}
+
+	@Test
+	void testDownloadExport() throws Exception {
+		mockMvc.perform(get("/owners/export").param("format", "CSV"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+			.andExpect(header().string("Content-Disposition", "attachment; filename=\"clinic.csv\""));
+	}
+
+	private String export(ImportFormat format) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		this.exporter.exportTo(output, format);
+		return output.toString(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerNameDirectory;
+import org.springframework.samples.petclinic.owner.PetTypeRegistry;
+import org.springframework.samples.petclinic.system.CacheChangeLog;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+
+/**
+ * Test class for {@link ClinicImporter}
+ */
+@SpringBootTest
+class ClinicImporterTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private PetTypeRegistry types;
+
+	@Autowired
+	private OwnerNameDirectory names;
+
+	@Autowired
+	private ObjectProvider<CacheChangeLog> changeLog;
+
+	private ClinicImporter importer;
+
+	@BeforeEach
+	void setup() {
+		// small batches so that the files below span several of them
+		importer = new ClinicImporter(jdbc, entityManagerFactory, transactionManager, validator, types, names,
+				changeLog, 2);
+	}
+
+	@Test
+	void testImportsCsv() throws IOException {
+		ImportReport report = importCsv("""
+				# owner, then its pets, each followed by its visits
+				owner,Anna,Csvimport,1 Main St.,Madison,6085550001
+				pet,Rex,2020-01-02,dog
+				visit,2021-03-04,"rabies shot, first dose"
+				visit,2022-03-04,"checkup ""annual""\"
+				pet,Tom,2019-05-06,cat
+
+				owner,Bert,Csvimport,2 Main St.,Madison,6085550002
+				owner,Carl,Csvimport,3 Main St.,Madison,6085550003
+				pet,Polly,2018-07-08,bird
+				""");
+		assertThat(report.getRows()).isEqualTo(8);
+		assertThat(report.getOwners()).isEqualTo(3);
+		assertThat(report.getPets()).isEqualTo(3);
+		assertThat(report.getVisits()).isEqualTo(2);
+		assertThat(report.getErrors()).isEmpty();
+		assertThat(report.getRowsPerSecond()).isPositive();
+		assertThat(jdbc.queryForList(
+				"SELECT v.description FROM visits v JOIN pets p ON p.id = v.pet_id JOIN owners o ON o.id = p.owner_id WHERE o.last_name = 'Csvimport' ORDER BY v.visit_date",
+				String.class))
+			.containsExactly("rabies shot, first dose", "checkup \"annual\"");
+		assertThat(jdbc.queryForList(
+				"SELECT o.first_name || ':' || p.name FROM pets p JOIN owners o ON o.id = p.owner_id WHERE o.last_name = 'Csvimport' ORDER BY p.name",
+				String.class))
+			.containsExactly("Carl:Polly", "Anna:Rex", "Anna:Tom");
+		assertThat(jdbc.queryForList(
+				"SELECT first_name || ':' || COALESCE(pet_names, '') || ':' || pet_count || ':' || COALESCE(CAST(last_visit AS VARCHAR), '') FROM owner_summary WHERE last_name = 'Csvimport' ORDER BY first_name",
+				String.class))
+			.containsExactly("Anna:Rex, Tom:2:2022-03-04", "Bert::0:", "Carl:Polly:1:");
+		assertThat(names.suggest("Csvimport", 10)).hasSize(3);
+	}
+
+	@Test
+	void testImportsNdjson() throws IOException {
+		ImportReport report = importer.importFrom(
+				stream("""
+						{"kind":"owner","firstName":"Dora","lastName":"Jsonimport","address":"4 Main St.","city":"Madison","telephone":"6085550004"}
+						{"kind":"pet","name":"Nemo","birthDate":"2020-01-02","type":"hamster"}
+						{"kind":"visit","date":"2021-01-01","description":"teeth"}
+						"""),
+				ImportFormat.NDJSON);
+		assertThat(report.getOwners()).isEqualTo(1);
+		assertThat(report.getPets()).isEqualTo(1);
+		assertThat(report.getVisits()).isEqualTo(1);
+		assertThat(report.getErrorCount()).isZero();
+	}
+
+	@Test
+	void testReportsRowErrorsWithoutAborting() throws IOException {
+		ImportReport report = importCsv("""
+				owner,Eve,Errorimport,5 Main St.,Madison,not-a-phone
+				pet,Orphan,2020-01-02,dog
+				owner,Fred,Errorimport,6 Main St.,Madison,6085550006
+				pet,Rex,2020-01-02,dragon
+				visit,2021-01-01,lost pet
+				pet,Max,someday,dog
+				pet,Fido,2020-01-02,dog
+				visit,2021-01-01,
+				visit,,checkup
+				visit,2021-01-01,"unterminated
+				visit,2021-01-01,ok,extra
+				vet,James,Carter
+				visit,2021-01-01,ok
+				""");
+		assertThat(report.getOwners()).isEqualTo(1);
+		assertThat(report.getPets()).isEqualTo(1);
+		assertThat(report.getVisits()).isEqualTo(1);
+		assertThat(report.getErrorCount()).isEqualTo(10);
+		assertThat(report.getErrors()).extracting(ImportReport.Error::line)
+			.containsExactly(1L, 2L, 4L, 5L, 6L, 8L, 9L, 10L, 11L, 12L);
+		assertThat(report.getErrors().get(0).message()).startsWith("telephone");
+		assertThat(report.getErrors().get(2).message()).isEqualTo("type unknown: dragon");
+		assertThat(report.getErrors().get(4).message()).isEqualTo("birthDate invalid date");
+		assertThat(report.getErrors().get(6).message()).isEqualTo("date required");
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM owners WHERE last_name = 'Errorimport'", Integer.class))
+			.isEqualTo(1);
+	}
+
+	private ImportReport importCsv(String content) throws IOException {
+		return importer.importFrom(stream(content), ImportFormat.CSV);
+	}
+
+	private ByteArrayInputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
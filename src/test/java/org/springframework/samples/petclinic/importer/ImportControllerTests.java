@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.importer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.samples.petclinic.system.Application;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link ImportController}
+ */
+@WebMvcTest(ImportController.class)
+@Import(Application.class)
+class ImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private ClinicImporter importer;
+
+	@Test
+	void testImportsUploadedFile() throws Exception {
+		ImportReport report = new ImportReport();
+		report.read();
+		report.saved(1, 0, 0);
+		given(this.importer.importFrom(any(InputStream.class), eq(ImportFormat.NDJSON))).willReturn(report);
+		mockMvc
+			.perform(multipart("/owners/import").file(new MockMultipartFile("file", "clinic.ndjson",
+					"application/x-ndjson", "{\"kind\":\"owner\"}".getBytes())))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.rows").value(1))
+			.andExpect(jsonPath("$.owners").value(1))
+			.andExpect(jsonPath("$.errors").isEmpty());
+	}
+
+	@Test
+	void testFormatParameterOverridesFileName() throws Exception {
+		given(this.importer.importFrom(any(InputStream.class), eq(ImportFormat.CSV))).willReturn(new ImportReport());
+		mockMvc
+			.perform(multipart("/owners/import")
+				.file(new MockMultipartFile("file", "clinic.jsonl", "text/plain", "owner,George".getBytes()))
+				.param("format", "CSV"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners").value(0));
+	}
+
+}
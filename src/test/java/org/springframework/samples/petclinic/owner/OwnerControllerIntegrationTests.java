@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class for the owner form of {@link OwnerController} against the real repositories,
+ * so that the version of the owner is checked by the database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OwnerControllerIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private OwnerNameDirectory names;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Owner owner;
+
+	@BeforeEach
+	void setup() {
+		this.owner = new Owner();
+		this.owner.setFirstName("Olga");
+		this.owner.setLastName("Versioned");
+		this.owner.setAddress("1 Main St.");
+		this.owner.setCity("Madison");
+		this.owner.setTelephone("6085550000");
+		this.owners.save(this.owner);
+	}
+
+	@AfterEach
+	void cleanup() {
+		// the context is shared with tests that expect the sample data
+		this.jdbc.update("DELETE FROM owner_summary WHERE owner_id = ?", this.owner.getId());
+		this.jdbc.update("DELETE FROM owners WHERE id = ?", this.owner.getId());
+	}
+
+	@Test
+	void testUpdateOwnerWithCurrentVersion() throws Exception {
+		this.mockMvc.perform(edit("Middleton").param("version", "0"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		Owner saved = this.owners.findById(this.owner.getId());
+		assertThat(saved.getCity()).isEqualTo("Middleton");
+		assertThat(saved.getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	void testUpdateOwnerWithStaleVersion() throws Exception {
+		this.owner.setCity("Verona");
+		this.owners.save(this.owner);
+
+		this.mockMvc.perform(edit("Middleton").param("version", "0"))
+			.andExpect(status().isConflict())
+			.andExpect(view().name("owners/createOrUpdateOwnerForm"))
+			.andExpect(content().string(containsString("Someone else changed this owner")));
+		Owner saved = this.owners.findById(this.owner.getId());
+		assertThat(saved.getCity()).isEqualTo("Verona");
+		assertThat(saved.getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	void testUpdateOwnerWithoutVersion() throws Exception {
+		this.mockMvc.perform(edit("Middleton"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/createOrUpdateOwnerForm"))
+			.andExpect(content().string(containsString("posted without the version of the owner")));
+		assertThat(this.owners.findById(this.owner.getId()).getCity()).isEqualTo("Madison");
+	}
+
+	@Test
+	void testOwnerIsSuggestedOnlyOnceSaved() {
+		new TransactionTemplate(this.transactionManager).executeWithoutResult((status) -> {
+			this.owner.setLastName("Rolledback");
+			this.names.update(this.owner);
+			assertThat(this.names.suggest("Rolledback", 10)).isEmpty();
+			status.setRollbackOnly();
+		});
+		assertThat(this.names.suggest("Rolledback", 10)).isEmpty();
+	}
+
+	private MockHttpServletRequestBuilder edit(String city) {
+		return post("/owners/{ownerId}/edit", this.owner.getId()).param("firstName", "Olga")
+			.param("lastName", "Versioned")
+			.param("address", "1 Main St.")
+			.param("city", city)
+			.param("telephone", "6085550000");
+	}
+
+}
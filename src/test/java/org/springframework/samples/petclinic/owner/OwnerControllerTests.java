@@ -16,16 +16,22 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -33,6 +39,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.assertj.core.util.Lists;
 import org.hamcrest.BaseMatcher;
@@ -46,8 +53,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.samples.petclinic.system.Application;
+import org.springframework.samples.petclinic.system.Revision;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.web.servlet.MockMvc;
@@ -58,7 +71,7 @@ import org.springframework.test.web.servlet.MockMvc;
  * @author Colin But
  */
 @WebMvcTest(OwnerController.class)
-@Import({ Application.class })
+@Import({ Application.class, OwnerGraphLoader.class, OwnerNameDirectory.class })
 class OwnerControllerTests {
 
 	private static final int TEST_OWNER_ID = 1;
@@ -66,12 +79,18 @@ class OwnerControllerTests {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private OwnerNameDirectory names;
+
 	@MockBean
 	private OwnerRepository owners;
 
 	@MockBean
 	private VisitRepository visits;
 
+	@MockBean
+	private OwnerSummaryRepository summaries;
+
 	private Owner george;
 
 	@BeforeEach
@@ -93,15 +112,16 @@ class OwnerControllerTests {
 		max.setOwner(george);
 		george.setPetsInternal(Collections.singleton(max));
 
-		given(this.owners.findByLastName(eq("Franklin"), any(Pageable.class)))
-			.willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
+		given(this.summaries.findListItemsByLastName(eq("Franklin"), any(Pageable.class)))
+			.willReturn(new PageImpl<>(Lists.newArrayList(listItem(george))));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
-		given(this.visits.findByPetId(max.getId())).willReturn(Collections.singletonList(visit));
+		given(this.visits.findRecentGroupedByPetId(eq(List.of(max.getId())), anyInt()))
+			.willReturn(Map.of(max.getId(), Collections.singletonList(visit)));
 
 	}
 
@@ -115,6 +135,10 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessCreationFormSuccess() throws Exception {
+		willAnswer((invocation) -> {
+			invocation.<Owner>getArgument(0).setId(33);
+			return null;
+		}).given(this.owners).save(any(Owner.class));
 		mockMvc
 			.perform(post("/owners/new").param("firstName", "Joe")
 				.param("lastName", "Bloggs")
@@ -122,6 +146,7 @@ class OwnerControllerTests {
 				.param("city", "London")
 				.param("telephone", "01316761638"))
 			.andExpect(status().is3xxRedirection());
+		Mockito.verify(this.summaries).refresh(33);
 	}
 
 	@Test
@@ -150,15 +175,28 @@ class OwnerControllerTests {
 		owner.setAddress("Nowhere");
 		owner.setCity("None");
 		owner.setTelephone("123456");
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george, owner));
-		Mockito.when(this.owners.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerListItem> tasks = new PageImpl<>(Lists.newArrayList(listItem(george), listItem(owner)));
+		Mockito.when(this.summaries.findListItemsByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
 	}
 
+	@Test
+	void testProcessFindFormShowsPetNames() throws Exception {
+		OwnerListItem owner = new OwnerListItem(george.getId(), george.getFirstName(), george.getLastName(),
+				george.getAddress(), george.getCity(), george.getTelephone(), "Leo, Max", 2, LocalDate.of(2013, 1, 4));
+		Page<OwnerListItem> tasks = new PageImpl<>(Lists.newArrayList(owner, listItem(george)));
+		Mockito.when(this.summaries.findListItemsByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
+		mockMvc.perform(get("/owners?page=1"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("<span>Leo</span> <span>Max</span>")))
+			.andExpect(content().string(containsString("<td>2</td>")))
+			.andExpect(content().string(containsString("<td>2013-01-04</td>")));
+	}
+
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george));
-		Mockito.when(this.owners.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerListItem> tasks = new PageImpl<>(Lists.newArrayList(listItem(george)));
+		Mockito.when(this.summaries.findListItemsByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
@@ -166,8 +204,9 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList());
-		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerListItem> tasks = new PageImpl<>(Lists.newArrayList());
+		Mockito.when(this.summaries.findListItemsByLastName(eq("Unknown Surname"), any(Pageable.class)))
+			.thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
@@ -176,6 +215,42 @@ class OwnerControllerTests {
 
 	}
 
+	@Test
+	void testScrollFindFormFirstWindow() throws Exception {
+		Owner owner = new Owner();
+		owner.setId(32);
+		owner.setLastName("Franklin");
+		owner.setAddress("Nowhere");
+		owner.setCity("None");
+		owner.setTelephone("123456");
+		Window<OwnerListItem> window = Window.from(Lists.newArrayList(listItem(george), listItem(owner)),
+				index -> ScrollPosition.forward(Map.of("lastName", "Franklin", "id", 32)), true);
+		given(this.summaries.findByLastNameStartingWith(eq(""), any(ScrollPosition.class), any(Sort.class),
+				any(Limit.class)))
+			.willReturn(window);
+		given(this.summaries.findIdsByLastName(eq(""), any(Limit.class))).willReturn(List.of(1, 32, 33));
+		mockMvc.perform(get("/owners").param("cursor", ""))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("keyset", true))
+			.andExpect(model().attribute("nextCursor", OwnerCursor.encode(window.getContent().get(1))))
+			.andExpect(model().attribute("approximateTotal", "3"))
+			.andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testScrollFindFormLastWindow() throws Exception {
+		Window<OwnerListItem> window = Window.from(Lists.newArrayList(listItem(george)),
+				index -> ScrollPosition.forward(Map.of("lastName", "Franklin", "id", 1)), false);
+		String cursor = OwnerCursor.encode(ScrollPosition.forward(Map.of("lastName", "Davis", "id", 4)));
+		given(this.summaries.findByLastNameStartingWith(eq(""), eq(OwnerCursor.decode(cursor)), any(Sort.class),
+				any(Limit.class)))
+			.willReturn(window);
+		mockMvc.perform(get("/owners").param("cursor", cursor))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeDoesNotExist("nextCursor", "approximateTotal"))
+			.andExpect(view().name("owners/ownersList"));
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID))
@@ -196,9 +271,43 @@ class OwnerControllerTests {
 				.param("lastName", "Bloggs")
 				.param("address", "123 Caramel Street")
 				.param("city", "London")
-				.param("telephone", "01616291589"))
+				.param("telephone", "01616291589")
+				.param("version", "0"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		Mockito.verify(this.summaries).refresh(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testSuggestOwners() throws Exception {
+		given(this.owners.findSuggestionsAfter(eq(0), any(Limit.class)))
+			.willReturn(List.of(new OwnerSuggestion(1, "George", "Franklin"), new OwnerSuggestion(2, "Betty", "Davis"),
+					new OwnerSuggestion(4, "Harold", "Davis")));
+		this.names.load();
+		mockMvc.perform(get("/owners/suggest").param("lastName", "da"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].firstName").value("Betty"))
+			.andExpect(jsonPath("$[1].id").value(4));
+		mockMvc.perform(get("/owners/suggest").param("lastName", "da").param("limit", "1"))
+			.andExpect(jsonPath("$.length()").value(1));
+		mockMvc.perform(get("/owners/suggest").param("lastName", " ")).andExpect(jsonPath("$.length()").value(0));
+		Mockito.verify(this.summaries, Mockito.never()).findListItemsByLastName(anyString(), any(Pageable.class));
+	}
+
+	@Test
+	void testUpdatedOwnerIsSuggested() throws Exception {
+		mockMvc
+			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "01616291589")
+				.param("version", "0"))
+			.andExpect(status().is3xxRedirection());
+		mockMvc.perform(get("/owners/suggest").param("lastName", "Blo"))
+			.andExpect(jsonPath("$[0].id").value(TEST_OWNER_ID))
+			.andExpect(jsonPath("$[0].lastName").value("Bloggs"));
 	}
 
 	@Test
@@ -206,7 +315,8 @@ class OwnerControllerTests {
 		mockMvc
 			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
 				.param("lastName", "Bloggs")
-				.param("city", "London"))
+				.param("city", "London")
+				.param("version", "0"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasErrors("owner"))
 			.andExpect(model().attributeHasFieldErrors("owner", "address"))
@@ -245,4 +355,27 @@ class OwnerControllerTests {
 			.andExpect(view().name("owners/ownerDetails"));
 	}
 
+	private static OwnerListItem listItem(Owner owner) {
+		return new OwnerListItem(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+				owner.getCity(), owner.getTelephone());
+	}
+
+	@Test
+	void testShowOwnerNotModified() throws Exception {
+		Revision revision = Revision.of(null, 1);
+		given(this.owners.findRevisionById(TEST_OWNER_ID)).willReturn(revision);
+		String etag = mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isEqualTo(revision.getEtag());
+		Mockito.clearInvocations(this.owners, this.visits);
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified())
+			.andExpect(content().string(""));
+		Mockito.verify(this.owners, Mockito.never()).findById(TEST_OWNER_ID);
+		Mockito.verifyNoInteractions(this.visits);
+	}
+
 }
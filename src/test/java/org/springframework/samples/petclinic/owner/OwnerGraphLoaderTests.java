@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Test class for {@link OwnerGraphLoader}, checking that the number of SQL statements
+ * does not grow with the number of pets.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(OwnerGraphLoader.class)
+class OwnerGraphLoaderTests {
+
+	@Autowired
+	private OwnerGraphLoader loader;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void shouldLoadVisitsOfAllPets() {
+		this.statistics.clear();
+		Owner owner = this.loader.findById(6);
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(owner.getPets()).hasSize(2);
+		assertThat(owner.getPet("Samantha").getVisits()).hasSize(2);
+		assertThat(owner.getPet("Max").getVisits()).hasSize(2);
+	}
+
+	@Test
+	void shouldIssueTwoStatementsForManyPets() {
+		Owner owner = this.owners.findById(1);
+		Collection<PetType> types = this.pets.findPetTypes();
+		for (int i = 0; i < 40; i++) {
+			Pet pet = new Pet();
+			pet.setName("Pet" + i);
+			pet.setBirthDate(LocalDate.now());
+			pet.setType(types.iterator().next());
+			owner.addPet(pet);
+			this.pets.save(pet);
+			Visit visit = new Visit();
+			visit.setDescription("check up");
+			pet.addVisit(visit);
+			this.visits.save(visit);
+		}
+		this.entityManager.flush();
+		this.entityManager.clear();
+
+		this.statistics.clear();
+		owner = this.loader.findById(1);
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(owner.getPets()).hasSize(41);
+		assertThat(owner.getPet("Pet39").getVisits()).hasSize(1);
+		assertThat(owner.getPet("Leo").getVisits()).isEmpty();
+	}
+
+	@Test
+	void shouldLoadOnlyRecentVisits() {
+		Pet leo = this.owners.findById(1).getPet("Leo");
+		for (int i = 1; i <= OwnerGraphLoader.RECENT_VISITS + 2; i++) {
+			Visit visit = new Visit();
+			visit.setDate(LocalDate.of(2020, 1, i));
+			visit.setDescription("check up " + i);
+			leo.addVisit(visit);
+			this.visits.save(visit);
+		}
+		this.entityManager.flush();
+		this.entityManager.clear();
+
+		this.statistics.clear();
+		leo = this.loader.findById(1).getPet("Leo");
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(leo.getVisits()).extracting(Visit::getDescription)
+			.containsExactly("check up 7", "check up 6", "check up 5", "check up 4", "check up 3");
+		assertThat(leo.hasOlderVisits()).isTrue();
+		assertThat(this.loader.findById(6).getPet("Max").hasOlderVisits()).isFalse();
+	}
+
+	@Test
+	void shouldReturnNullForUnknownOwner() {
+		assertThat(this.loader.findById(-1)).isNull();
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link OwnerNameIndex}
+ */
+class OwnerNameIndexTests {
+
+	private final OwnerNameIndex index = OwnerNameIndex
+		.of(List.of(new OwnerSuggestion(1, "George", "Franklin"), new OwnerSuggestion(2, "Betty", "Davis"),
+				new OwnerSuggestion(3, "Eduardo", "Rodriquez"), new OwnerSuggestion(4, "Harold", "Davis"),
+				new OwnerSuggestion(5, "Peter", "McTavish"), new OwnerSuggestion(6, "Jean", "Coleman"),
+				new OwnerSuggestion(7, "Jeff", "Black"), new OwnerSuggestion(8, "Maria", "Escobito"),
+				new OwnerSuggestion(9, "David", "Schroeder"), new OwnerSuggestion(10, "Carlos", "Estaban")));
+
+	@Test
+	void testSuggestsByPrefixIgnoringCase() {
+		assertThat(ids(index.suggest("Da", 10))).containsExactly(2, 4);
+		assertThat(ids(index.suggest("es", 10))).containsExactly(8, 10);
+		assertThat(ids(index.suggest("E", 10))).containsExactly(8, 10);
+		assertThat(ids(index.suggest("franklin", 10))).containsExactly(1);
+		assertThat(index.suggest("Franklins", 10)).isEmpty();
+		assertThat(index.suggest("Z", 10)).isEmpty();
+	}
+
+	@Test
+	void testLimitsSuggestions() {
+		assertThat(ids(index.suggest("Da", 1))).containsExactly(2);
+		assertThat(index.suggest("", 3)).extracting(OwnerSuggestion::lastName)
+			.containsExactly("Black", "Coleman", "Davis");
+	}
+
+	@Test
+	void testPutAddsAndReplacesOwners() {
+		index.put(new OwnerSuggestion(11, "Ann", "Davis"));
+		assertThat(ids(index.suggest("Da", 10))).containsExactly(11, 2, 4);
+		index.put(new OwnerSuggestion(2, "Betty", "Dalton"));
+		assertThat(ids(index.suggest("Da", 10))).containsExactly(2, 11, 4);
+		index.put(new OwnerSuggestion(4, "Harold", "Smith"));
+		assertThat(ids(index.suggest("Da", 10))).containsExactly(2, 11);
+		assertThat(ids(index.suggest("Sm", 10))).containsExactly(4);
+		assertThat(index.size()).isEqualTo(11);
+	}
+
+	@Test
+	void testPutAllAddsAndReplacesOwners() {
+		index.putAll(List.of(new OwnerSuggestion(11, "Ann", "Davis"), new OwnerSuggestion(2, "Betty", "Dalton"),
+				new OwnerSuggestion(12, "Carl", "Dalton")));
+		assertThat(ids(index.suggest("Da", 10))).containsExactly(2, 12, 11, 4);
+		assertThat(index.size()).isEqualTo(12);
+	}
+
+	@Test
+	void testCompactsAddedOwners() {
+		for (int id = 100; id < 100 + OwnerNameIndex.COMPACTION_THRESHOLD + 10; id++) {
+			index.put(new OwnerSuggestion(id, "Owner" + id, "Dawson"));
+		}
+		index.put(new OwnerSuggestion(1, "George", "Dalton"));
+		assertThat(index.size()).isEqualTo(10 + OwnerNameIndex.COMPACTION_THRESHOLD + 10);
+		List<OwnerSuggestion> found = index.suggest("Da", Integer.MAX_VALUE);
+		assertThat(found).hasSize(3 + OwnerNameIndex.COMPACTION_THRESHOLD + 10);
+		assertThat(found).isSortedAccordingTo(OwnerNameIndex.ORDER);
+		assertThat(found.get(0)).isEqualTo(new OwnerSuggestion(1, "George", "Dalton"));
+		assertThat(index.suggest("Fr", 10)).isEmpty();
+	}
+
+	private List<Integer> ids(List<OwnerSuggestion> owners) {
+		List<Integer> ids = new ArrayList<>();
+		owners.forEach((owner) -> ids.add(owner.id()));
+		return ids;
+	}
+
+}
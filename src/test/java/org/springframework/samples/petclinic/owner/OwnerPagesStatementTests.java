@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.springframework.samples.petclinic.system.SqlAccountingMatchers.expectStatements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Number of SQL statements run by the owner, pet and visit pages against the sample data.
+ * The pages of owners with one pet (George Franklin) and with two pets (Jean Coleman)
+ * must run the same number, or a query is being repeated per pet. Cached owner pages only
+ * run the query of their revision.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OwnerPagesStatementTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CacheManager caches;
+
+	@Autowired
+	private OwnerSummaryRepository summaries;
+
+	@Test
+	void testShowOwner() throws Exception {
+		this.caches.getCache("owners").clear();
+		this.mockMvc.perform(get("/owners/1")).andExpect(status().isOk()).andExpect(expectStatements(3));
+		this.mockMvc.perform(get("/owners/6")).andExpect(status().isOk()).andExpect(expectStatements(3));
+	}
+
+	@Test
+	void testShowCachedOwner() throws Exception {
+		this.mockMvc.perform(get("/owners/1")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/owners/1")).andExpect(status().isOk()).andExpect(expectStatements(1));
+	}
+
+	@Test
+	void testListOwners() throws Exception {
+		this.mockMvc.perform(get("/owners")).andExpect(status().isOk()).andExpect(expectStatements(2));
+		this.mockMvc.perform(get("/owners").param("cursor", ""))
+			.andExpect(status().isOk())
+			.andExpect(expectStatements(2));
+	}
+
+	@Test
+	void testEditOwnerForm() throws Exception {
+		this.mockMvc.perform(get("/owners/6/edit")).andExpect(status().isOk()).andExpect(expectStatements(1));
+	}
+
+	@Test
+	void testEditPetForm() throws Exception {
+		this.mockMvc.perform(get("/owners/6/pets/7/edit")).andExpect(status().isOk()).andExpect(expectStatements(3));
+	}
+
+	@Test
+	void testNewVisitForm() throws Exception {
+		this.mockMvc.perform(get("/owners/6/pets/7/visits/new"))
+			.andExpect(status().isOk())
+			.andExpect(expectStatements(3));
+	}
+
+	@Test
+	void testVisitHistory() throws Exception {
+		this.mockMvc.perform(get("/owners/6/pets/7/visits")).andExpect(status().isOk()).andExpect(expectStatements(3));
+	}
+
+	@Test
+	void testAddVisit() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/6/pets/8/visits/new").param("date", "2023-01-04").param("description", "check up"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(expectStatements(8));
+		// the context is shared with tests that expect the sample data
+		this.jdbc.update("DELETE FROM visits WHERE description = 'check up'");
+		this.jdbc.update("DELETE FROM owner_summary WHERE owner_id = 6");
+		this.summaries.insertMissing();
+	}
+
+}
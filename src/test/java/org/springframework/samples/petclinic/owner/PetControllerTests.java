@@ -17,6 +17,7 @@
 package org.springframework.samples.petclinic.owner;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -42,7 +43,7 @@ import org.springframework.test.web.servlet.MockMvc;
  */
 @WebMvcTest(value = PetController.class,
 		includeFilters = @ComponentScan.Filter(value = PetTypeFormatter.class, type = FilterType.ASSIGNABLE_TYPE))
-@Import({ Application.class })
+@Import({ Application.class, PetTypeRegistry.class })
 class PetControllerTests {
 
 	private static final int TEST_OWNER_ID = 1;
@@ -58,6 +59,9 @@ class PetControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private OwnerSummaryRepository summaries;
+
 	@BeforeEach
 	void setup() {
 		PetType cat = new PetType();
@@ -85,6 +89,7 @@ class PetControllerTests {
 				.param("birthDate", "2015-02-12"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.summaries).refresh(TEST_OWNER_ID);
 	}
 
 	@Test
@@ -116,6 +121,7 @@ class PetControllerTests {
 				.param("birthDate", "2015-02-12"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.summaries).refresh(TEST_OWNER_ID);
 	}
 
 	@Test
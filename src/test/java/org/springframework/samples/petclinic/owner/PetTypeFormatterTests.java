@@ -47,7 +47,7 @@ class PetTypeFormatterTests {
 
 	@BeforeEach
 	void setup() {
-		this.petTypeFormatter = new PetTypeFormatter(pets);
+		this.petTypeFormatter = new PetTypeFormatter(new PetTypeRegistry(pets));
 	}
 
 	@Test
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Test class for {@link PetTypeRegistry}
+ */
+@SpringBootTest
+class PetTypeRegistryTests {
+
+	@Autowired
+	private PetTypeRegistry registry;
+
+	@Autowired
+	private MeterRegistry meters;
+
+	@Test
+	void shouldCachePetTypes() {
+		PetTypes types = this.registry.getPetTypes();
+		assertThat(types.getAll()).extracting(PetType::getName)
+			.containsExactly("bird", "cat", "dog", "hamster", "lizard", "snake");
+		assertThat(types.findByName("dog").getId()).isEqualTo(2);
+		assertThat(types.findByName("Dog")).isNull();
+
+		double hits = cacheGets("hit");
+		assertThat(this.registry.getPetTypes()).isSameAs(types);
+		assertThat(cacheGets("hit")).isEqualTo(hits + 1);
+
+		this.registry.refresh();
+		assertThat(this.registry.getPetTypes()).isNotSameAs(types);
+	}
+
+	private double cacheGets(String result) {
+		return this.meters.get("cache.gets").tag("cache", "petTypes").tag("result", result).functionCounter().count();
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.samples.petclinic.owner;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -55,12 +56,18 @@ class VisitControllerTests {
 	@MockBean
 	private PetRepository pets;
 
+	@MockBean
+	private OwnerSummaryRepository summaries;
+
 	@BeforeEach
 	void init() {
+		Owner owner = new Owner();
+		owner.setId(1);
 		Pet value = new Pet();
+		value.setId(TEST_PET_ID);
 		value.setName("Fred");
 		value.setBirthDate(LocalDate.now());
-		value.setOwner(new Owner());
+		value.setOwner(owner);
 		PetType type = new PetType();
 		type.setName("pig");
 		value.setType(type);
@@ -81,6 +88,7 @@ class VisitControllerTests {
 				.param("description", "Visit Description"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.summaries).refresh(1);
 	}
 
 	@Test
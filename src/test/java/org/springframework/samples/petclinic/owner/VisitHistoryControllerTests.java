@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.system.Application;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link VisitHistoryController}
+ */
+@WebMvcTest(VisitHistoryController.class)
+@Import({ Application.class })
+class VisitHistoryControllerTests {
+
+	private static final int TEST_PET_ID = 1;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private PetRepository pets;
+
+	private final Visit visit = new Visit();
+
+	@BeforeEach
+	void init() {
+		Owner owner = new Owner();
+		owner.setId(1);
+		Pet pet = new Pet();
+		pet.setId(TEST_PET_ID);
+		pet.setName("Fred");
+		pet.setBirthDate(LocalDate.now());
+		pet.setOwner(owner);
+		PetType type = new PetType();
+		type.setName("pig");
+		pet.setType(type);
+		given(this.pets.findById(TEST_PET_ID)).willReturn(pet);
+		this.visit.setDescription("rabies shot");
+		// 25 visits, so 3 pages of 10
+		given(this.visits.findByPetId(eq(TEST_PET_ID), any(Pageable.class))).willAnswer(invocation -> {
+			Pageable pageable = invocation.getArgument(1);
+			return new PageImpl<>(pageable.getOffset() < 25 ? List.of(this.visit) : List.of(), pageable, 25);
+		});
+	}
+
+	@Test
+	void testShowVisitHistory() throws Exception {
+		mockMvc.perform(get("/owners/*/pets/{petId}/visits", TEST_PET_ID).param("page", "2"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listVisits", List.of(this.visit)))
+			.andExpect(model().attribute("totalPages", 3))
+			.andExpect(content().string(containsString("rabies shot")))
+			.andExpect(view().name("pets/visitHistory"));
+		verify(this.visits).findByPetId(TEST_PET_ID, PageRequest.of(1, 10));
+		verify(this.visits, never()).findRecentByPetIdIn(anyCollection(), anyInt());
+	}
+
+	@Test
+	void testShowVisitHistoryBeforeTheFirstPage() throws Exception {
+		mockMvc.perform(get("/owners/*/pets/{petId}/visits", TEST_PET_ID).param("page", "0"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("first", true))
+			.andExpect(model().attribute("previous", 0))
+			.andExpect(content().string(not(containsString("page=-1"))));
+	}
+
+	@Test
+	void testShowVisitHistoryAfterTheLastPage() throws Exception {
+		mockMvc.perform(get("/owners/*/pets/{petId}/visits", TEST_PET_ID).param("page", "9"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("last", true))
+			.andExpect(model().attribute("next", 4));
+		verify(this.visits).findByPetId(TEST_PET_ID, PageRequest.of(2, 10));
+	}
+
+}
@@ -20,17 +20,32 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerListItem;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+import org.springframework.samples.petclinic.owner.OwnerSummaryRepository;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.owner.PetType;
@@ -39,7 +54,10 @@ import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Integration test of the Service and the Repository layer.
@@ -86,8 +104,22 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected OwnerSummaryRepository summaries;
+
+	@Autowired
+	protected JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	protected PlatformTransactionManager transactionManager;
+
 	Pageable pageable;
 
+	@BeforeEach
+	void addSummaries() {
+		this.summaries.insertMissing();
+	}
+
 	@Test
 	void shouldFindOwnersByLastName() {
 		Page<Owner> owners = this.owners.findByLastName("Davis", pageable);
@@ -97,6 +129,73 @@ class ClinicServiceTests {
 		assertThat(owners).isEmpty();
 	}
 
+	@Test
+	void shouldFindOwnerListItemsFromSummaries() {
+		Page<OwnerListItem> owners = this.summaries.findListItemsByLastName("Davis", PageRequest.of(0, 5));
+		assertThat(owners.getTotalElements()).isEqualTo(2);
+		assertThat(owners).extracting(OwnerListItem::getPetNames)
+			.containsExactlyInAnyOrder(List.of("Basil"), List.of("Iggy"));
+
+		owners = this.summaries.findListItemsByLastName("Coleman", PageRequest.of(0, 5));
+		assertThat(owners).singleElement().satisfies((owner) -> {
+			assertThat(owner.getPetNames()).containsExactly("Max", "Samantha");
+			assertThat(owner.getPetCount()).isEqualTo(2);
+			assertThat(owner.getLastVisit()).isEqualTo(LocalDate.of(2013, 1, 4));
+		});
+	}
+
+	@Test
+	void shouldRefreshOwnerSummary() {
+		Owner owner7 = this.owners.findById(7);
+		Pet pet = new Pet();
+		pet.setName("Bruno");
+		pet.setType(EntityUtils.getById(this.pets.findPetTypes(), PetType.class, 2));
+		pet.setBirthDate(LocalDate.now());
+		owner7.addPet(pet);
+		this.pets.save(pet);
+		Visit visit = new Visit();
+		visit.setDescription("check up");
+		visit.setDate(LocalDate.of(2020, 5, 1));
+		owner7.getPet("Lucky").addVisit(visit);
+		this.visits.save(visit);
+		assertThat(this.jdbcTemplate.queryForObject("SELECT pet_count FROM owner_summary WHERE owner_id = 7",
+				Integer.class))
+			.isEqualTo(1);
+
+		this.summaries.refresh(7);
+
+		OwnerSummary summary = this.summaries.findById(7);
+		assertThat(summary.getPetNames()).isEqualTo("Bruno, Lucky");
+		assertThat(summary.getPetCount()).isEqualTo(2);
+		assertThat(summary.getLastVisit()).isEqualTo(LocalDate.of(2020, 5, 1));
+	}
+
+	@Test
+	void shouldScrollOwnersByLastName() {
+		Sort sort = Sort.by("lastName", "id");
+		Window<OwnerListItem> window = this.summaries.findByLastNameStartingWith("", ScrollPosition.keyset(), sort,
+				Limit.of(4));
+		assertThat(window).extracting(OwnerListItem::getLastName).containsExactly("Black", "Coleman", "Davis", "Davis");
+		assertThat(window.hasNext()).isTrue();
+
+		window = this.summaries.findByLastNameStartingWith("", after(window), sort, Limit.of(4));
+		assertThat(window).extracting(OwnerListItem::getLastName)
+			.containsExactly("Escobito", "Estaban", "Franklin", "McTavish");
+
+		window = this.summaries.findByLastNameStartingWith("", after(window), sort, Limit.of(4));
+		assertThat(window).extracting(OwnerListItem::getLastName).containsExactly("Rodriquez", "Schroeder");
+		assertThat(window.hasNext()).isFalse();
+
+		window = this.summaries.findByLastNameStartingWith("Davis", ScrollPosition.keyset(), sort, Limit.of(4));
+		assertThat(window).hasSize(2);
+		assertThat(this.summaries.findIdsByLastName("Davis", Limit.of(1))).hasSize(1);
+	}
+
+	private static ScrollPosition after(Window<OwnerListItem> window) {
+		OwnerListItem last = window.getContent().get(window.size() - 1);
+		return ScrollPosition.forward(Map.of("lastName", last.getLastName(), "id", last.getId()));
+	}
+
 	@Test
 	void shouldFindSingleOwnerWithPet() {
 		Owner owner = this.owners.findById(1);
@@ -125,6 +224,32 @@ class ClinicServiceTests {
 		assertThat(owners.getTotalElements()).isEqualTo(found + 1);
 	}
 
+	@Test
+	@Transactional
+	void shouldAssignIdsBeforeInserting() {
+		Owner first = new Owner();
+		first.setFirstName("Sam");
+		first.setLastName("Schultz");
+		first.setAddress("4, Evans Street");
+		first.setCity("Wollongong");
+		first.setTelephone("4444444444");
+		this.owners.save(first);
+		Owner second = new Owner();
+		second.setFirstName("Kim");
+		second.setLastName("Schultz");
+		second.setAddress("4, Evans Street");
+		second.setCity("Wollongong");
+		second.setTelephone("4444444444");
+		this.owners.save(second);
+
+		// both ids come from the same block of the sequence, the rows are not inserted
+		// yet
+		assertThat(second.getId()).isEqualTo(first.getId() + 1);
+		assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM owners WHERE id IN (?, ?)", Integer.class,
+				first.getId(), second.getId()))
+			.isZero();
+	}
+
 	@Test
 	@Transactional
 	void shouldUpdateOwner() {
@@ -222,6 +347,60 @@ class ClinicServiceTests {
 		assertThat(visit.getId()).isNotNull();
 	}
 
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldRefreshOwnerSummaryFromConcurrentTransactions() throws Exception {
+		TransactionTemplate transactions = new TransactionTemplate(this.transactionManager);
+		CountDownLatch refreshed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// two visits for different pets of owner 6, the second saved while the first
+			// is not committed yet
+			CompletableFuture<Void> first = CompletableFuture
+				.runAsync(() -> transactions.executeWithoutResult((status) -> {
+					addVisit(7, LocalDate.of(2030, 1, 1));
+					refreshed.countDown();
+					await(release);
+				}));
+			assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+			CompletableFuture<Void> second = CompletableFuture
+				.runAsync(() -> transactions.executeWithoutResult((status) -> addVisit(8, LocalDate.of(2030, 2, 1))));
+			// the second transaction waits for the first one to commit
+			Thread.sleep(200);
+			assertThat(second).isNotDone();
+			release.countDown();
+			first.get(10, TimeUnit.SECONDS);
+			second.get(10, TimeUnit.SECONDS);
+			assertThat(this.jdbcTemplate.queryForObject("SELECT last_visit FROM owner_summary WHERE owner_id = 6",
+					LocalDate.class))
+				.isEqualTo(LocalDate.of(2030, 2, 1));
+		}
+		finally {
+			release.countDown();
+			this.jdbcTemplate.update("DELETE FROM visits WHERE description = 'concurrent'");
+			transactions.executeWithoutResult((status) -> this.summaries.refresh(6));
+		}
+	}
+
+	private void addVisit(int petId, LocalDate date) {
+		Visit visit = new Visit();
+		visit.setPetId(petId);
+		visit.setDate(date);
+		visit.setDescription("concurrent");
+		this.visits.save(visit);
+		this.summaries.refresh(6);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() throws Exception {
 		Collection<Visit> visits = this.visits.findByPetId(7);
@@ -231,4 +410,20 @@ class ClinicServiceTests {
 		assertThat(visitArr[0].getPetId()).isEqualTo(7);
 	}
 
+	@Test
+	void shouldPageVisitsByPetIdNewestFirst() {
+		Page<Visit> page = this.visits.findByPetId(7, PageRequest.of(0, 1));
+		assertThat(page.getTotalElements()).isEqualTo(2);
+		assertThat(page.getTotalPages()).isEqualTo(2);
+		assertThat(page.getContent()).extracting(Visit::getDate).containsExactly(LocalDate.of(2013, 1, 4));
+	}
+
+	@Test
+	void shouldFindRecentVisitsPerPet() {
+		List<Visit> visits = this.visits.findRecentByPetIdIn(List.of(7, 8), 1);
+		assertThat(visits).extracting(Visit::getPetId).containsExactly(7, 8);
+		assertThat(visits).extracting(Visit::getDate)
+			.containsExactly(LocalDate.of(2013, 1, 4), LocalDate.of(2013, 1, 3));
+	}
+
 }
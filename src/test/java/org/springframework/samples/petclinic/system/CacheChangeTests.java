@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.importer.ClinicImporter;
+import org.springframework.samples.petclinic.importer.ImportFormat;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerNameDirectory;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetDirectory;
+import org.springframework.samples.petclinic.vet.VetRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Two nodes of a cluster sharing one database, each evicting from its caches what the
+ * other one changed.
+ */
+class CacheChangeTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private static ConfigurableApplicationContext first;
+
+	private static ConfigurableApplicationContext second;
+
+	@BeforeAll
+	static void startNodes() {
+		first = node("always");
+		// a node joining the cluster finds the database initialized
+		second = node("never");
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		first.close();
+		second.close();
+	}
+
+	private static ConfigurableApplicationContext node(String initialize) {
+		return new SpringApplicationBuilder(PetClinicApplication.class).web(WebApplicationType.NONE)
+			.properties("spring.datasource.url=jdbc:h2:mem:cache-change-tests;DB_CLOSE_DELAY=-1",
+					"spring.sql.init.mode=" + initialize, "app.cache-changes.enabled=true",
+					"app.cache-changes.poll-interval=50ms")
+			.run();
+	}
+
+	@Test
+	void shouldEvictVetChangedByOtherNode() throws Exception {
+		VetDirectory directory = second.getBean(VetDirectory.class);
+		assertThat(carter(directory).getNrOfSpecialties()).isZero();
+		EntityManagerFactory entities = second.getBean(EntityManagerFactory.class);
+		assertThat(entities.getCache().contains(Vet.class, 1)).isTrue();
+
+		VetRepository vets = first.getBean(VetRepository.class);
+		Vet vet = vets.findAll().stream().filter(candidate -> candidate.getId() == 1).findFirst().orElseThrow();
+		Specialty surgery = vets.findAll()
+			.stream()
+			.flatMap(candidate -> candidate.getSpecialties().stream())
+			.filter(specialty -> specialty.getName().equals("surgery"))
+			.findFirst()
+			.orElseThrow();
+		vet.addSpecialty(surgery);
+		vets.save(vet);
+
+		await(() -> !entities.getCache().contains(Vet.class, 1));
+		await(() -> carter(directory).getNrOfSpecialties() == 1);
+		assertThat(carter(directory).getSpecialties()).extracting(Specialty::getName).containsExactly("surgery");
+	}
+
+	@Test
+	void shouldUpdateOwnerNameChangedByOtherNode() throws Exception {
+		OwnerRepository owners = first.getBean(OwnerRepository.class);
+		Owner owner = owners.findById(1);
+		owner.setLastName("Franklyn");
+		owners.save(owner);
+
+		OwnerNameDirectory names = second.getBean(OwnerNameDirectory.class);
+		await(() -> !names.suggest("Franklyn", 10).isEmpty());
+		assertThat(names.suggest("Franklin", 10)).isEmpty();
+	}
+
+	@Test
+	void shouldAddOwnerImportedByOtherNode() throws Exception {
+		first.getBean(ClinicImporter.class)
+			.importFrom(
+					new ByteArrayInputStream(
+							"owner,Ida,Clusterimport,7 Main St.,Madison,6085550007\n".getBytes(StandardCharsets.UTF_8)),
+					ImportFormat.CSV);
+
+		OwnerNameDirectory names = second.getBean(OwnerNameDirectory.class);
+		await(() -> !names.suggest("Clusterimport", 10).isEmpty());
+	}
+
+	@Test
+	void shouldLogChangesWithTheirNode() {
+		OwnerRepository owners = second.getBean(OwnerRepository.class);
+		Owner owner = owners.findById(2);
+		owner.setCity("Monona");
+		owners.save(owner);
+
+		JdbcTemplate jdbc = second.getBean(JdbcTemplate.class);
+		assertThat(jdbc.queryForList("SELECT node FROM cache_changes WHERE entity = 'Owner' AND entity_id = 2",
+				String.class))
+			.containsExactly(second.getBean(CacheChangeLog.class).getNode());
+	}
+
+	private static Vet carter(VetDirectory directory) {
+		return directory.getSnapshot()
+			.getVets()
+			.stream()
+			.filter(vet -> vet.getLastName().equals("Carter"))
+			.findFirst()
+			.orElseThrow();
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime() - deadline).as("waiting for the other node").isNegative();
+			Thread.sleep(20);
+		}
+	}
+
+}
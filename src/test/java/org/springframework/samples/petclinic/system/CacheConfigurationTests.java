@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.system.CachingProperties.Spec;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+/**
+ * Test class for {@link CacheConfiguration}
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = { "app.cache.vets.max-size=7",
+		"app.cache.vets.expire-after-write=5m", "app.cache.vets.refresh-after-write=1m", "app.cache.extra.max-size=1" })
+class CacheConfigurationTests {
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private org.springframework.cache.CacheManager springCaches;
+
+	@Autowired
+	private MeterRegistry meters;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Test
+	void testCachesAreCreatedFromProperties() {
+		CaffeineConfiguration<?, ?> vets = cacheManager.getCache("vets").getConfiguration(CaffeineConfiguration.class);
+		assertThat(vets.getMaximumSize()).isEqualTo(OptionalLong.of(7));
+		assertThat(vets.getExpireAfterWrite()).isEqualTo(OptionalLong.of(Duration.ofMinutes(5).toNanos()));
+		assertThat(vets.isStatisticsEnabled()).isTrue();
+		assertThat(vets.isStoreByValue()).isFalse();
+		assertThat(cacheManager.getCacheNames()).containsExactlyInAnyOrder("vets", "petTypes", "petTypeEntities",
+				"specialtyEntities", "vetEntities", "vetSpecialties", "default-query-results-region",
+				"default-update-timestamps-region", "owners", "extra");
+	}
+
+	@Test
+	void testSpringCachesShareLoads() {
+		assertThat(springCaches.getCache("vets")).isInstanceOf(CoalescingCache.class);
+		assertThat(springCaches.getCache("owners")).isInstanceOf(CoalescingCache.class);
+	}
+
+	@Test
+	void testCaffeineStatisticsArePublished() {
+		assertThat(meters.find("cache.evictions").tag("cache", "vets").functionCounter()).isNotNull();
+		assertThat(meters.find("cache.gets").tags("cache", "petTypes", "result", "hit").functionCounter()).isNotNull();
+	}
+
+	@Test
+	void testSecondLevelCacheRegionStatisticsArePublished() {
+		double hits = petTypeHits();
+		this.pets.findById(7);
+		this.pets.findById(7);
+		assertThat(petTypeHits()).isGreaterThan(hits);
+	}
+
+	@Test
+	void testPetTypesQueryIsCached() {
+		this.pets.findPetTypes();
+		double hits = meters.get("cache.gets")
+			.tags("cache", "default-query-results-region", "result", "hit")
+			.functionCounter()
+			.count();
+		assertThat(this.pets.findPetTypes()).extracting(PetType::getName).startsWith("bird", "cat");
+		assertThat(meters.get("cache.gets")
+			.tags("cache", "default-query-results-region", "result", "hit")
+			.functionCounter()
+			.count()).isEqualTo(hits + 1);
+	}
+
+	private double petTypeHits() {
+		return meters.get("cache.gets").tags("cache", "petTypeEntities", "result", "hit").functionCounter().count();
+	}
+
+	@Test
+	void testRefreshAfterWriteMustComeBeforeExpiry() {
+		CachingProperties properties = new CachingProperties();
+		Spec spec = new Spec();
+		spec.setRefreshAfterWrite(Duration.ofMinutes(10));
+		spec.setExpireAfterWrite(Duration.ofMinutes(10));
+		properties.getCache().put("refreshed", spec);
+		try (CacheManager cacheManager = Caching.getCachingProvider()
+			.getCacheManager(URI.create("refresh-test"), getClass().getClassLoader())) {
+			assertThatIllegalStateException()
+				.isThrownBy(() -> new CacheConfiguration().petclinicCacheConfigurationCustomizer(properties)
+					.customize(cacheManager))
+				.withMessageContaining("refreshed");
+		}
+	}
+
+}
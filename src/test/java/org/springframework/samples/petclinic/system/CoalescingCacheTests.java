@@ -0,0 +1,170 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+/**
+ * Test class for {@link CoalescingCache}
+ */
+class CoalescingCacheTests {
+
+	private CacheManager cacheManager;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setup() {
+		this.cacheManager = Caching.getCachingProvider()
+			.getCacheManager(URI.create("coalescing-test"), getClass().getClassLoader());
+		this.executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	void close() {
+		this.executor.shutdownNow();
+		this.cacheManager.close();
+	}
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		CoalescingCache cache = cache(null);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<>();
+		results.add(this.executor.submit(() -> cache.get("key", () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "value";
+		})));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		for (int i = 0; i < 3; i++) {
+			results.add(this.executor.submit(() -> cache.get("key", () -> {
+				loads.incrementAndGet();
+				return "other";
+			})));
+		}
+		// give the other callers time to find the running load
+		Thread.sleep(100);
+		release.countDown();
+		for (Future<String> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void staleValueIsServedWhileItIsRefreshed() throws Exception {
+		CoalescingCache cache = cache(Duration.ZERO);
+		cache.put("key", "old");
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch loaded = new CountDownLatch(1);
+		for (int i = 0; i < 3; i++) {
+			assertThat(cache.get("key", () -> {
+				loads.incrementAndGet();
+				release.await();
+				loaded.countDown();
+				return "new";
+			})).isEqualTo("old");
+		}
+		release.countDown();
+		assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+		this.executor.shutdown();
+		assertThat(this.executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(loads).hasValue(1);
+		assertThat(cache.get("key", String.class)).isEqualTo("new");
+	}
+
+	@Test
+	void loadStartedBeforeAnEvictionDoesNotStoreItsValue() throws Exception {
+		CoalescingCache cache = cache(null);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> result = this.executor.submit(() -> cache.get("key", () -> {
+			loading.countDown();
+			release.await();
+			return "stale";
+		}));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		cache.evict("key");
+		release.countDown();
+		assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+		assertThat(cache.get("key")).isNull();
+		assertThat(cache.get("key", () -> "fresh")).isEqualTo("fresh");
+	}
+
+	@Test
+	void refreshStartedBeforeAClearDoesNotStoreItsValue() throws Exception {
+		CoalescingCache cache = cache(Duration.ZERO);
+		cache.put("key", "old");
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		assertThat(cache.get("key", () -> {
+			loading.countDown();
+			release.await();
+			return "stale";
+		})).isEqualTo("old");
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		cache.clear();
+		release.countDown();
+		this.executor.shutdown();
+		assertThat(this.executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(cache.get("key")).isNull();
+	}
+
+	@Test
+	void failedLoadIsRethrown() {
+		CoalescingCache cache = cache(null);
+		assertThatExceptionOfType(ValueRetrievalException.class).isThrownBy(() -> cache.get("key", () -> {
+			throw new IllegalStateException("no database");
+		})).withRootCauseInstanceOf(IllegalStateException.class);
+		assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+	}
+
+	private CoalescingCache cache(Duration refreshAfterWrite) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setStoreByValue(false);
+		return new CoalescingCache(this.cacheManager.createCache("test", configuration), true, refreshAfterWrite,
+				this.executor);
+	}
+
+}
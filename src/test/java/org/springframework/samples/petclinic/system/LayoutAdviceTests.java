@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.system.LayoutAdvice.MenuItem;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link LayoutAdvice}
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class LayoutAdviceTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LayoutAdvice layout;
+
+	@Test
+	void testMenusArePrebuiltPerActiveMenu() {
+		assertThat(layout.menus("vets")).filteredOn(MenuItem::active)
+			.extracting(MenuItem::name)
+			.containsExactly("Vets");
+		assertThat(layout.menus("owners")).filteredOn(MenuItem::active)
+			.extracting(MenuItem::name)
+			.containsExactly("Owners");
+		assertThat(layout.menus("unknown")).isSameAs(layout.menus("home"));
+	}
+
+	@Test
+	void testActiveMenuDoesNotLeakBetweenConcurrentRequests() throws Exception {
+		String[][] pages = { { "/", "/" }, { "/owners/find", "/owners/find" }, { "/vets.html", "/vets.html" },
+				{ "/owners/1", "/owners/find" } };
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String[] page = pages[i % pages.length];
+				results.add(executor.submit((Callable<Void>) () -> {
+					String html = mockMvc.perform(get(page[0])).andReturn().getResponse().getContentAsString();
+					assertThat(html).as(page[0]).contains("class=\"nav-link active\" href=\"" + page[1] + "\"");
+					assertThat(html.split("nav-link active", -1)).as(page[0]).hasSize(2);
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.samples.petclinic.system.Pagination.PageLink;
+import org.springframework.ui.ExtendedModelMap;
+
+import com.samskivert.mustache.Mustache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link Pagination}
+ */
+class PaginationTests {
+
+	@Test
+	void testLinksAllPagesWhenThereAreFew() {
+		assertThat(numbers(Pagination.of(2, 3))).containsExactly("1", "[2]", "3");
+		assertThat(numbers(Pagination.of(1, 1))).containsExactly("[1]");
+		assertThat(Pagination.of(1, 0).getPages()).isEmpty();
+	}
+
+	@Test
+	void testLinksFirstAndLastPagesAroundTheWindow() {
+		assertThat(numbers(Pagination.of(50, 100))).containsExactly("1", "...", "48", "49", "[50]", "51", "52", "...",
+				"100");
+		assertThat(numbers(Pagination.of(1, 100))).containsExactly("[1]", "2", "3", "...", "100");
+		assertThat(numbers(Pagination.of(100, 100))).containsExactly("1", "...", "98", "99", "[100]");
+		assertThat(numbers(Pagination.of(4, 100))).containsExactly("1", "2", "3", "[4]", "5", "6", "...", "100");
+	}
+
+	@Test
+	void testKeepsTheWindowPastTheLastPage() {
+		assertThat(numbers(Pagination.of(7, 5))).containsExactly("1", "...", "3", "4", "5");
+	}
+
+	@Test
+	void testWindowSizeDoesNotDependOnTotalPages() {
+		int bound = 2 * Pagination.AROUND + 5;
+		for (int totalPages = 1; totalPages <= 1_000_000; totalPages *= 10) {
+			assertThat(Pagination.of(totalPages / 2 + 1, totalPages).getPages()).hasSizeLessThanOrEqualTo(bound);
+		}
+		assertThat(Pagination.of(Integer.MAX_VALUE / 2, Integer.MAX_VALUE).getPages()).hasSize(bound);
+	}
+
+	@Test
+	void testRenderedNavigationDoesNotGrowWithTotalPages() throws IOException {
+		TemplateRegistry templates = new TemplateRegistry(Mustache.compiler(),
+				new PathMatchingResourcePatternResolver(), "classpath:/templates/", ".mustache", StandardCharsets.UTF_8,
+				new SimpleMeterRegistry());
+		templates.load();
+		String small = render(templates, 10_000, 20_000);
+		String large = render(templates, 500_000, 1_000_000);
+		// only the digits of the page numbers differ
+		assertThat(large.length() - small.length()).isBetween(0, 40);
+		assertThat(large).contains("page=1000000").doesNotContain("page=499997");
+	}
+
+	private String render(TemplateRegistry templates, int page, int totalPages) {
+		ExtendedModelMap model = new ExtendedModelMap();
+		Pagination.of(page, totalPages).addTo(model);
+		model.addAttribute("listVets", List.of());
+		model.addAttribute("menus", List.of());
+		StringWriter writer = new StringWriter();
+		templates.render("vets/vetList", model, writer);
+		return writer.toString();
+	}
+
+	private List<String> numbers(Pagination pagination) {
+		return pagination.getPages()
+			.stream()
+			.map(link -> link.gap() ? "..." : link.current() ? "[" + link.number() + "]" : "" + link.number())
+			.toList();
+	}
+
+}
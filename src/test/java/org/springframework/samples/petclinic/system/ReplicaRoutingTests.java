@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Test class for {@link ReplicaRoutingDataSource}, with a second in-memory H2 database
+ * standing in for a replica. The replica is never written to by the application, so
+ * changes made to it directly tell which database a read went to.
+ */
+@SpringBootTest(classes = PetClinicApplication.class,
+		properties = { "app.replicas.instances[0].url=" + ReplicaRoutingTests.REPLICA_URL,
+				"app.replicas.lag-query=SELECT lag FROM replica_lag" })
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-tests;DB_CLOSE_DELAY=-1";
+
+	private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private ReplicaLagMonitor monitor;
+
+	@Autowired
+	private JdbcTemplate primary;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@SpyBean
+	private ReplicaRoutingDataSource routing;
+
+	@BeforeEach
+	void seedReplica() {
+		new ResourceDatabasePopulator(new ClassPathResource("db/h2/schema.sql"),
+				new ClassPathResource("db/h2/data.sql"))
+			.execute(this.replica.getDataSource());
+		this.replica.update("UPDATE owners SET last_name = 'Replica' WHERE id = 1");
+		this.replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag DECIMAL(10, 3))");
+		this.replica.update("DELETE FROM replica_lag");
+		this.replica.update("INSERT INTO replica_lag VALUES (0.2)");
+		this.monitor.check();
+	}
+
+	@Test
+	void shouldReadFromReplicaInReadOnlyTransactions() {
+		assertThat(this.owners.findById(1).getLastName()).isEqualTo("Replica");
+	}
+
+	@Test
+	void shouldWriteToPrimary() {
+		Owner owner = this.owners.findById(2);
+		owner.setCity("Madison");
+		this.owners.save(owner);
+		assertThat(this.primary.queryForObject("SELECT city FROM owners WHERE id = 2", String.class))
+			.isEqualTo("Madison");
+		assertThat(this.replica.queryForObject("SELECT city FROM owners WHERE id = 2", String.class))
+			.isEqualTo("Sun Prairie");
+	}
+
+	@Test
+	void shouldReadFromPrimaryWhenReplicaLags() {
+		this.replica.update("UPDATE replica_lag SET lag = 10");
+		this.monitor.check();
+		assertThat(this.owners.findById(1).getLastName()).isEqualTo("Franklin");
+	}
+
+	@Test
+	void shouldReadFromPrimaryWhenReplicaIsDown() {
+		this.replica.execute("DROP TABLE replica_lag");
+		this.monitor.check();
+		assertThat(this.owners.findById(1).getLastName()).isEqualTo("Franklin");
+	}
+
+	@Test
+	void shouldReadOwnerRevisionAndDetailsFromOneConnection() throws Exception {
+		this.cacheManager.getCache("owners").clear();
+		clearInvocations(this.routing);
+		this.mockMvc.perform(get("/owners/1"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("Replica")));
+		// a second connection could go to another replica, at another revision
+		verify(this.routing, times(1)).getConnection();
+	}
+
+	@Test
+	void shouldReadOwnWritesAfterRedirect() throws Exception {
+		MvcResult result = this.mockMvc
+			.perform(post("/owners/new").param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "01316761638"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+			.andReturn();
+		Cookie sticky = result.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+		this.mockMvc.perform(get(result.getResponse().getRedirectedUrl()).cookie(sticky))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("Bloggs")));
+		this.mockMvc.perform(get("/owners/1").cookie(sticky)).andExpect(content().string(containsString("Franklin")));
+		this.mockMvc.perform(get("/owners/1"))
+			.andExpect(content().string(containsString("Replica")))
+			.andExpect(content().string(not(containsString("Franklin"))));
+	}
+
+}
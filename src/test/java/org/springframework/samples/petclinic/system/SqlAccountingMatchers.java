@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * MockMvc expectations on the {@link SqlAccounting} of a request, to catch pages that
+ * start running a query per row (the "N+1 selects" problem). Needs the full application
+ * context, for Hibernate to report the statements.
+ */
+public final class SqlAccountingMatchers {
+
+	private SqlAccountingMatchers() {
+	}
+
+	/**
+	 * Assert the number of SQL statements a request ran.
+	 * @param statements the expected number of statements
+	 */
+	public static ResultMatcher expectStatements(int statements) {
+		return result -> {
+			SqlAccounting accounting = SqlAccounting.of(result.getRequest());
+			assertThat(accounting).as("SQL accounting of the request").isNotNull();
+			assertThat(accounting.getStatements())
+				.as("SQL statements run by %s %s (%s)", result.getRequest().getMethod(),
+						result.getRequest().getRequestURI(), accounting)
+				.isEqualTo(statements);
+		};
+	}
+
+}
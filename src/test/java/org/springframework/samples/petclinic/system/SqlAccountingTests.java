@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Test class for {@link SqlAccounting}
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class SqlAccountingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meters;
+
+	@Autowired
+	private CacheManager caches;
+
+	@Test
+	void testServerTimingHeader() throws Exception {
+		this.caches.getCache("owners").clear();
+		this.mockMvc.perform(get("/owners/1"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("Server-Timing",
+					matchesPattern("sql;dur=\\d+\\.\\d{3};desc=\"3 statements, 3 rows\"")));
+	}
+
+	@Test
+	void testMetricsTaggedByHandler() throws Exception {
+		String handler = "OwnerController.initUpdateOwnerForm";
+		this.mockMvc.perform(get("/owners/1/edit")).andExpect(status().isOk());
+		DistributionSummary statements = this.meters.get("petclinic.sql.statements").tag("handler", handler).summary();
+		DistributionSummary rows = this.meters.get("petclinic.sql.rows").tag("handler", handler).summary();
+		Timer time = this.meters.get("petclinic.sql.time").tag("handler", handler).timer();
+		long count = statements.count();
+		double total = statements.totalAmount();
+		double totalRows = rows.totalAmount();
+		double totalTime = time.totalTime(TimeUnit.NANOSECONDS);
+
+		this.mockMvc.perform(get("/owners/2/edit")).andExpect(status().isOk());
+		assertThat(statements.count()).isEqualTo(count + 1);
+		assertThat(statements.totalAmount()).isEqualTo(total + 1);
+		assertThat(rows.totalAmount()).isGreaterThan(totalRows);
+		assertThat(time.count()).isEqualTo(count + 1);
+		assertThat(time.totalTime(TimeUnit.NANOSECONDS)).isGreaterThan(totalTime);
+	}
+
+	@Test
+	void testStaticResourcesNotAccounted() throws Exception {
+		this.mockMvc.perform(get("/resources/images/pets.png"))
+			.andExpect(status().isOk())
+			.andExpect(header().doesNotExist("Server-Timing"));
+	}
+
+}
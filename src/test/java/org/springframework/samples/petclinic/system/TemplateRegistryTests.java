@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.View;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.MustacheException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link TemplateRegistry}
+ */
+class TemplateRegistryTests {
+
+	@TempDir
+	Path directory;
+
+	private SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	private TemplateRegistry templates;
+
+	@BeforeEach
+	void setup() throws IOException {
+		Files.createDirectories(directory.resolve("fragments"));
+		write("fragments/layout", "<p>{{$body}}{{/body}}</p>");
+		write("page", "{{<fragments/layout}}{{$body}}Hello {{name}}{{/body}}{{/fragments/layout}}");
+		templates = new TemplateRegistry(Mustache.compiler(), new PathMatchingResourcePatternResolver(),
+				directory.toUri().toString(), ".mustache", StandardCharsets.UTF_8, meters);
+		templates.load();
+	}
+
+	@Test
+	void testCompilesAllApplicationTemplates() throws IOException {
+		TemplateRegistry templates = new TemplateRegistry(Mustache.compiler(),
+				new PathMatchingResourcePatternResolver(), "classpath:/templates/", ".mustache", StandardCharsets.UTF_8,
+				meters);
+		templates.load();
+		assertThat(templates.getNames()).contains("welcome", "fragments/layout", "owners/ownersList", "vets/vetList");
+	}
+
+	@Test
+	void testRendersWithPartials() {
+		assertThat(render("page")).isEqualTo("<p>Hello George</p>");
+		assertThat(meters.get("petclinic.templates.compile").tag("view", "page").timer().count()).isEqualTo(1);
+		assertThat(meters.get("petclinic.templates.render").tag("view", "page").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void testReloadReplacesTemplates() throws IOException {
+		write("fragments/layout", "<div>{{$body}}{{/body}}</div>");
+		assertThat(render("page")).isEqualTo("<p>Hello George</p>");
+		templates.load();
+		assertThat(render("page")).isEqualTo("<div>Hello George</div>");
+	}
+
+	@Test
+	void testFailedReloadKeepsTemplates() throws IOException {
+		write("page", "{{<fragments/missing}}{{/fragments/missing}}");
+		assertThatExceptionOfType(MustacheException.class).isThrownBy(templates::load);
+		assertThat(render("page")).isEqualTo("<p>Hello George</p>");
+	}
+
+	@Test
+	void testUnknownTemplate() {
+		assertThat(templates.contains("missing")).isFalse();
+		assertThatExceptionOfType(MustacheException.class)
+			.isThrownBy(() -> templates.render("missing", Map.of(), new StringWriter()));
+	}
+
+	@Test
+	void testViewFlushesLayoutBeforeBody() throws Exception {
+		write("fragments/layout", "<header/>{{#flush}}{{/flush}}{{$body}}{{/body}}");
+		write("page", "{{<fragments/layout}}{{$body}}{{#probe}}{{/probe}}{{/body}}{{/fragments/layout}}");
+		templates.load();
+		TemplateConfiguration.RegistryViewResolver resolver = new TemplateConfiguration.RegistryViewResolver(
+				Mustache.compiler(), templates);
+		resolver.setExposeSpringMacroHelpers(false);
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.refresh();
+		resolver.setApplicationContext(context);
+		View view = resolver.resolveViewName("page", Locale.ENGLISH);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> sentBeforeBody = new AtomicReference<>();
+		Mustache.Lambda probe = (fragment, out) -> sentBeforeBody
+			.set(response.isCommitted() ? response.getContentAsString() : null);
+		view.render(Map.of("probe", probe), new MockHttpServletRequest(), response);
+		assertThat(sentBeforeBody.get()).isEqualTo("<header/>");
+	}
+
+	private String render(String name) {
+		StringWriter out = new StringWriter();
+		templates.render(name, Map.of("name", "George"), out);
+		return out.toString();
+	}
+
+	private void write(String name, String source) throws IOException {
+		Files.writeString(directory.resolve(name + ".mustache"), source);
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link ThreadingConfiguration}
+ */
+class ThreadingConfigurationTests {
+
+	private final ApplicationContextRunner runner = new ApplicationContextRunner()
+		.withUserConfiguration(ThreadingConfiguration.class)
+		.withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+	@Test
+	void testPlatformThreadsByDefault() {
+		this.runner.run(context -> assertThat(context).doesNotHaveBean(PinnedThreadMonitor.class));
+	}
+
+	@Test
+	@EnabledForJreRange(max = JRE.JAVA_20)
+	void testVirtualThreadsNeedJava21() {
+		this.runner.withPropertyValues("spring.threads.virtual.enabled=true")
+			.run(context -> assertThat(context).doesNotHaveBean(PinnedThreadMonitor.class));
+	}
+
+	@Test
+	void testRecordsPinnedFrames() {
+		SimpleMeterRegistry meters = new SimpleMeterRegistry();
+		PinnedThreadMonitor monitor = new PinnedThreadMonitor(meters, Duration.ofMillis(20));
+		monitor.record("org.h2.engine.SessionLocal.lock", Duration.ofMillis(30));
+		monitor.record("org.h2.engine.SessionLocal.lock", Duration.ofMillis(50));
+		Timer timer = meters.get("petclinic.threads.pinned").tag("frame", "org.h2.engine.SessionLocal.lock").timer();
+		assertThat(timer.count()).isEqualTo(2);
+		assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(80);
+	}
+
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_21)
+	void testDetectsPinnedVirtualThreads() {
+		this.runner.withPropertyValues("spring.threads.virtual.enabled=true", "app.threads.pinned-threshold=10ms")
+			.run(context -> {
+				assertThat(context).hasSingleBean(PinnedThreadMonitor.class);
+				// Thread.ofVirtual() does not compile on the Java 17 baseline
+				Thread thread = (Thread) Thread.class.getMethod("startVirtualThread", Runnable.class)
+					.invoke(null, (Runnable) ThreadingConfigurationTests::sleepWhileLocked);
+				thread.join();
+				MeterRegistry meters = context.getBean(MeterRegistry.class);
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+				while (meters.find("petclinic.threads.pinned").timer() == null && System.nanoTime() < deadline) {
+					Thread.sleep(100);
+				}
+				assertThat(meters.get("petclinic.threads.pinned")
+					.tag("frame", ThreadingConfigurationTests.class.getName() + ".sleepWhileLocked")
+					.timer()
+					.count()).isPositive();
+			});
+	}
+
+	private static void sleepWhileLocked() {
+		synchronized (ThreadingConfigurationTests.class) {
+			try {
+				Thread.sleep(50);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
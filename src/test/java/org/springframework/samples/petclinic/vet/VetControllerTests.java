@@ -16,10 +16,13 @@
 
 package org.springframework.samples.petclinic.vet;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -32,8 +35,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.system.Application;
 import org.springframework.test.web.servlet.MockMvc;
@@ -45,12 +47,15 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
  */
 
 @WebMvcTest(VetController.class)
-@Import({ Application.class })
+@Import({ Application.class, VetDirectory.class })
 class VetControllerTests {
 
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private VetDirectory directory;
+
 	@MockBean
 	private VetRepository vets;
 
@@ -73,8 +78,6 @@ class VetControllerTests {
 		radiology.setName("radiology");
 		helen.addSpecialty(radiology);
 		given(this.vets.findAll()).willReturn(Lists.newArrayList(james, helen));
-		given(this.vets.findAll(any(Pageable.class))).willReturn(new PageImpl<Vet>(Lists.newArrayList(james, helen)));
-
 	}
 
 	@Test
@@ -83,10 +86,20 @@ class VetControllerTests {
 		mockMvc.perform(MockMvcRequestBuilders.get("/vets.html?page=1"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeExists("vets"))
+			.andExpect(content().string(containsString("<td>Helen Leary</td>")))
+			.andExpect(content().string(containsString("<span>radiology</span>")))
 			.andExpect(view().name("vets/vetList"));
 
 	}
 
+	@Test
+	void testShowVetListPastLastPage() throws Exception {
+		mockMvc.perform(get("/vets.html?page=2"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listVets", empty()))
+			.andExpect(model().attribute("totalPages", 1));
+	}
+
 	@Test
 	void testShowResourcesVetList() throws Exception {
 		ResultActions actions = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON))
@@ -95,4 +108,28 @@ class VetControllerTests {
 			.andExpect(jsonPath("$.vetList[0].id").value(1));
 	}
 
+	@Test
+	void testShowVetListNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/vets.html"))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/vets.html").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified())
+			.andExpect(content().string(""));
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void testShowVetListModified() throws Exception {
+		String etag = mockMvc.perform(get("/vets.html")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		james.setVersion(1);
+		directory.refresh();
+		mockMvc.perform(get("/vets.html").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+	}
+
 }
@@ -37,4 +37,22 @@ class VetTests {
 		assertThat(other.getId()).isEqualTo(vet.getId());
 	}
 
+	@Test
+	void testSpecialtiesSortedByName() {
+		Vet vet = new Vet();
+		vet.addSpecialty(specialty("surgery"));
+		vet.addSpecialty(specialty("dentistry"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("dentistry", "surgery");
+		assertThat(vet.getSpecialties()).isSameAs(vet.getSpecialties());
+		vet.addSpecialty(specialty("Radiology"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName)
+			.containsExactly("dentistry", "Radiology", "surgery");
+	}
+
+	private static Specialty specialty(String name) {
+		Specialty specialty = new Specialty();
+		specialty.setName(name);
+		return specialty;
+	}
+
 }